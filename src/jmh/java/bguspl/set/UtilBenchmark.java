@@ -0,0 +1,114 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Set validation and set search over tables of different sizes, for different deck shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    private static final int CANDIDATES = 1024; // a power of two
+
+    @Param({"3", "4"})
+    int featureSize;
+
+    @Param({"4", "5"})
+    int featureCount;
+
+    /**
+     * The number of cards to search for sets in (e.g. 12 for a standard table).
+     */
+    @Param({"12", "21", "81"})
+    int cards;
+
+    private Util util;
+    private int[] table;
+    private List<Integer> tableList;
+    private int[][] candidates;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+        Random random = new Random(0);
+
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++)
+            deck.add(card);
+        Collections.shuffle(deck, random);
+        tableList = new ArrayList<>(deck.subList(0, cards));
+        table = tableList.stream().mapToInt(Integer::intValue).toArray();
+
+        // half random card combinations (mostly not sets), half legal sets
+        candidates = new int[CANDIDATES][];
+        for (int i = 0; i < CANDIDATES; i++) {
+            Collections.shuffle(deck, random);
+            int[] candidate = new int[featureSize];
+            for (int j = 0; j < featureSize; j++)
+                candidate[j] = deck.get(j);
+            if (i % 2 == 1) {
+                int[] others = new int[featureSize - 1];
+                System.arraycopy(candidate, 0, others, 0, others.length);
+                int last = util.completeSet(others);
+                if (last >= 0 && !contains(others, last))
+                    candidate[featureSize - 1] = last;
+            }
+            candidates[i] = candidate;
+        }
+    }
+
+    private static boolean contains(int[] cards, int card) {
+        for (int c : cards)
+            if (c == card) return true;
+        return false;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(candidates[next++ & (CANDIDATES - 1)]);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSets() {
+        return util.findSets(table, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<int[]> findOneSet() {
+        return util.findSets(table, 1);
+    }
+
+    @Benchmark
+    public List<int[]> findAllSetsInList() {
+        return util.findSets(tableList, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,96 @@
+package bguspl.set.ex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The table locks on their own: player threads take the read side of a slot while one dealer thread takes the write
+ * side, with a little work inside each critical section. The "readers" benchmark has no writer at all.
+ * Change the mix with e.g. -tg 7,1.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LockBenchmark {
+
+    private static final int SLOTS = 12;
+    private static final int WORK = 10; // Blackhole tokens spent holding the lock
+
+    @Param({"Stamped", "Striped", "ReaderWriter"})
+    String lock;
+
+    private TableLock rw;
+    private final AtomicInteger nextThread = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        switch (lock) {
+            case "ReaderWriter": rw = new ReaderWriter(); break;
+            case "Striped": rw = new StripedTableLock(SLOTS); break;
+            default: rw = new StampedTableLock();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        int slot;
+
+        @Setup
+        public void setup(LockBenchmark benchmark) {
+            slot = benchmark.nextThread.getAndIncrement() % SLOTS;
+        }
+
+        int next() {
+            return slot = (slot + 1) % SLOTS;
+        }
+    }
+
+    private void read(Slot slot) {
+        int s = slot.next();
+        rw.playerLock(s);
+        Blackhole.consumeCPU(WORK);
+        rw.playerUnlock(s);
+    }
+
+    @Benchmark
+    @Group("readers")
+    @GroupThreads(4)
+    public void readersOnly(Slot slot) {
+        read(slot);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void player(Slot slot) {
+        read(slot);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void dealer(Slot slot) {
+        int s = slot.next();
+        rw.dealerLock(s);
+        Blackhole.consumeCPU(WORK);
+        rw.dealerUnlock(s);
+    }
+}
@@ -0,0 +1,109 @@
+package bguspl.set.ex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand-off throughput of the players' action queue (one producer, one consumer) and of the dealer's claim queue
+ * (any number of producers, one consumer). No thread may be left parked when an iteration ends, so the action queue
+ * drops the newest action instead of blocking the producer when it is full, and the consumer only takes an action when
+ * there is one; both spin (yielding, for machines with fewer cores than benchmark threads) while they wait.
+ * Run the claim queue with N players with -tg N,1.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueueBenchmark {
+
+    @Param({"3", "64"})
+    int capacity;
+
+    private actionsQueue actions;
+    private actionsQueue dropping;
+    private setsQueue claims;
+    private Triple<Integer, int[], int[]> claim;
+
+    @Setup
+    public void setup() {
+        actions = new actionsQueue(capacity, actionsQueue.Policy.DROP_NEWEST);
+        dropping = new actionsQueue(capacity, actionsQueue.Policy.DROP_OLDEST);
+        claims = new setsQueue();
+        claim = new Triple<>(0, new int[3], new int[3]);
+    }
+
+    @Benchmark
+    @Group("actions")
+    @GroupThreads(1)
+    public boolean keyboard(Control control) {
+        while (!control.stopMeasurement) {
+            if (actions.put(1)) // false iff the queue is full
+                return true;
+            Thread.yield();
+        }
+        return false;
+    }
+
+    @Benchmark
+    @Group("actions")
+    @GroupThreads(1)
+    public int player(Control control) {
+        while (actions.size() == 0) {
+            if (control.stopMeasurement)
+                return actionsQueue.NO_ACTION;
+            Thread.yield();
+        }
+        return actions.take(); // there is an action, and only this thread removes actions, so this does not wait
+    }
+
+    /**
+     * The same hand-off when the producer never waits but overwrites the oldest action while the queue is full.
+     */
+    @Benchmark
+    @Group("dropOldest")
+    @GroupThreads(1)
+    public boolean droppingKeyboard() {
+        return dropping.put(1);
+    }
+
+    @Benchmark
+    @Group("dropOldest")
+    @GroupThreads(1)
+    public int droppingPlayer() {
+        // the producer only drops actions from a full queue, so one that is not empty stays so until taken
+        return dropping.size() > 0 ? dropping.take() : actionsQueue.NO_ACTION;
+    }
+
+    @Benchmark
+    @Group("claims")
+    @GroupThreads(3)
+    public void claim() {
+        claims.put(claim);
+    }
+
+    @Benchmark
+    @Group("claims")
+    @GroupThreads(1)
+    public int dealer() {
+        int count = 0;
+        for (setsQueue.Node node = claims.drain(); node != null; node = node.next)
+            count++;
+        return count;
+    }
+}
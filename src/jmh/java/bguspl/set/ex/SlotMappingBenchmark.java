@@ -0,0 +1,123 @@
+package bguspl.set.ex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the boxed (Integer[] with null) and primitive (int[] with Table.EMPTY) slot/card mappings on the access
+ * pattern of the table's hot paths: replacing the card in a slot, reading a slot, checking a claimed set and returning
+ * the table to the deck.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SlotMappingBenchmark {
+
+    private static final int MOVES = 4096;
+
+    @Param({"81"})
+    int deckSize;
+
+    @Param({"12", "64"})
+    int tableSize;
+
+    // random (slot, card) pairs, two ints per move
+    private int[] moves;
+
+    private Integer[] boxedSlotToCard;
+    private Integer[] boxedCardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
+    private final int[] cards = new int[1];
+    private final int[] slots = new int[1];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0);
+        moves = new int[2 * MOVES];
+        for (int i = 0; i < MOVES; i++) {
+            moves[2 * i] = random.nextInt(tableSize);
+            moves[2 * i + 1] = random.nextInt(deckSize);
+        }
+        boxedSlotToCard = new Integer[tableSize];
+        boxedCardToSlot = new Integer[deckSize];
+        slotToCard = new int[tableSize];
+        cardToSlot = new int[deckSize];
+        Arrays.fill(slotToCard, Table.EMPTY);
+        Arrays.fill(cardToSlot, Table.EMPTY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public long boxed() {
+        long sink = 0;
+        for (int i = 0; i < moves.length; i += 2) {
+            int slot = moves[i], card = moves[i + 1];
+            if (boxedCardToSlot[card] == null) {
+                Integer previous = boxedSlotToCard[slot];
+                if (previous != null)
+                    boxedCardToSlot[previous] = null;
+                boxedCardToSlot[card] = slot;
+                boxedSlotToCard[slot] = card;
+            }
+            Integer read = boxedSlotToCard[moves[(i + 2) % moves.length]];
+            if (read != null)
+                sink += read;
+            cards[0] = card;
+            slots[0] = slot;
+            if (boxedSlotToCard[slots[0]] != null && cards[0] == boxedSlotToCard[slots[0]])
+                sink++;
+            if ((i & 0xfff) == 0)
+                for (Integer c : boxedSlotToCard)
+                    if (c != null)
+                        sink += c;
+        }
+        return sink;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVES)
+    public long primitive() {
+        long sink = 0;
+        for (int i = 0; i < moves.length; i += 2) {
+            int slot = moves[i], card = moves[i + 1];
+            if (cardToSlot[card] == Table.EMPTY) {
+                int previous = slotToCard[slot];
+                if (previous != Table.EMPTY)
+                    cardToSlot[previous] = Table.EMPTY;
+                cardToSlot[card] = slot;
+                slotToCard[slot] = card;
+            }
+            int read = slotToCard[moves[(i + 2) % moves.length]];
+            if (read != Table.EMPTY)
+                sink += read;
+            cards[0] = card;
+            slots[0] = slot;
+            int onTable = slotToCard[slots[0]];
+            if (onTable != Table.EMPTY && cards[0] == onTable)
+                sink++;
+            if ((i & 0xfff) == 0)
+                for (int c : slotToCard)
+                    if (c != Table.EMPTY)
+                        sink += c;
+        }
+        return sink;
+    }
+}
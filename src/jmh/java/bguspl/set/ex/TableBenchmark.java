@@ -0,0 +1,120 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterfaceHeadless;
+import bguspl.set.UtilImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The players' table operations under contention, with each table lock: a player places a token, reads its set and
+ * removes the token again, while in the "dealer" group one thread keeps replacing cards.
+ * Run with more player threads with e.g. -t 8, or -tg 7,1 for the dealer group.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableBenchmark {
+
+    private static final int PLAYERS = 64;
+
+    @Param({"Stamped", "Striped", "ReaderWriter"})
+    String lock;
+
+    @Param({"3"})
+    int rows;
+
+    @Param({"4"})
+    int columns;
+
+    private Table table;
+    private int tableSize;
+    private final AtomicInteger nextPlayer = new AtomicInteger();
+
+    @Setup
+    public void setup() {
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", Integer.toString(PLAYERS));
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TableLock", lock);
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getAnonymousLogger();
+        Config config = new Config(logger, properties);
+        table = new Table(new Env(logger, config, new UserInterfaceHeadless(), new UtilImpl(config)));
+        tableSize = config.tableSize;
+        for (int slot = 0; slot < tableSize; slot++)
+            table.placeCard(slot, slot);
+    }
+
+    @State(Scope.Thread)
+    public static class Player {
+        int id;
+        int slot;
+
+        @Setup
+        public void setup(TableBenchmark benchmark) {
+            id = benchmark.nextPlayer.getAndIncrement() % PLAYERS;
+            slot = id % benchmark.tableSize;
+        }
+    }
+
+    private int[][] tokenRoundTrip(Player player) {
+        int slot = player.slot = (player.slot + 1) % tableSize;
+        table.ourPlaceToken(player.id, slot);
+        int[][] set = table.returnSet(player.id);
+        table.rw.playerLock(slot);
+        table.removeToken(player.id, slot);
+        table.rw.playerUnlock(slot);
+        return set;
+    }
+
+    @Benchmark
+    public int[][] players(Player player) {
+        return tokenRoundTrip(player);
+    }
+
+    @Benchmark
+    public int cardAt(Player player) {
+        player.slot = (player.slot + 1) % tableSize;
+        return table.cardAt(player.slot);
+    }
+
+    @Benchmark
+    @Group("dealer")
+    @GroupThreads(3)
+    public int[][] playersWithDealer(Player player) {
+        return tokenRoundTrip(player);
+    }
+
+    @Benchmark
+    @Group("dealer")
+    @GroupThreads(1)
+    public void dealer(Player player) {
+        int slot = player.slot = (player.slot + 1) % tableSize;
+        table.removeCard(slot);
+        table.placeCard(slot, slot);
+    }
+}
@@ -0,0 +1,185 @@
+package bguspl.set;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that never blocks the logging thread on I/O. Records are put in a bounded lock-free ring buffer, and
+ * a background thread formats and writes them in batches, flushing once per batch. If the buffer is full the record
+ * is dropped and counted, and the writer notes how many records were lost in the log.
+ *
+ * The ring buffer is a bounded multi-producer queue: every cell has a sequence number telling whether it is free for
+ * the producer of round t (sequence == t) or holds the record of round t (sequence == t + 1), so producers only
+ * contend on one compare-and-set of the tail.
+ */
+public class AsyncHandler extends Handler {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    private static final int BATCH = 256;
+    private static final long IDLE_PARK_NANOS = 10_000_000; // an idle writer still checks every 10ms
+
+    private final LogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong(); // the next round to put
+    private volatile long head;                        // the next round to write (written by the writer only)
+    private volatile long flushed;                     // the rounds before this one are written and flushed
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private final Writer out;
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    public AsyncHandler(Writer out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out      - where to write the formatted records.
+     * @param capacity - the number of records that may wait to be written (rounded up to a power of two).
+     */
+    public AsyncHandler(Writer out, int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        records = new LogRecord[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        mask = size - 1;
+        this.out = new BufferedWriter(out);
+
+        writer = new Thread(this::writeLoop, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record))
+            return;
+        if (!offer(record)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        if (writerParked)
+            LockSupport.unpark(writer);
+    }
+
+    private boolean offer(LogRecord record) {
+        while (true) {
+            long t = tail.get();
+            int index = (int) t & mask;
+            long sequence = sequences.get(index);
+            if (sequence < t)
+                return false; // the record of the previous round in this cell was not written yet: full
+            if (sequence == t && tail.compareAndSet(t, t + 1)) {
+                records[index] = record;
+                sequences.set(index, t + 1);
+                return true;
+            }
+        }
+    }
+
+    private LogRecord poll() {
+        long h = head;
+        int index = (int) h & mask;
+        if (sequences.get(index) != h + 1)
+            return null;
+        LogRecord record = records[index];
+        records[index] = null;
+        sequences.set(index, h + records.length);
+        head = h + 1;
+        return record;
+    }
+
+    private void writeLoop() {
+        while (!closed) {
+            if (writeBatch() == 0) {
+                writerParked = true;
+                if (sequences.get((int) head & mask) != head + 1 && !closed)
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                writerParked = false;
+            }
+        }
+        while (writeBatch() > 0);
+    }
+
+    /**
+     * Writes up to a batch of records, then flushes the output.
+     * @return - the number of records written.
+     */
+    private int writeBatch() {
+        int count = 0;
+        try {
+            long lost = dropped.get();
+            boolean reported = lost != droppedReported;
+            if (reported) {
+                out.write("[" + (lost - droppedReported) + " log records dropped, the log buffer was full]"
+                        + System.lineSeparator());
+                droppedReported = lost;
+            }
+            LogRecord record;
+            while (count < BATCH && (record = poll()) != null) {
+                count++;
+                try {
+                    out.write(getFormatter() != null ? getFormatter().format(record) : record.getMessage());
+                } catch (RuntimeException e) {
+                    reportError(null, e, ErrorManager.FORMAT_FAILURE);
+                }
+            }
+            if (count > 0 || reported) {
+                out.flush();
+                flushed = head;
+            }
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+        return count;
+    }
+
+    /**
+     * @return - the number of records dropped so far because the buffer was full.
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Waits until every record published before the call is written and flushed.
+     */
+    @Override
+    public void flush() {
+        long target = tail.get();
+        while (flushed < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Writes the remaining records and closes the output.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join();
+            out.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+}
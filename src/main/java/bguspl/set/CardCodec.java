@@ -0,0 +1,162 @@
+package bguspl.set;
+
+/**
+ * Precomputed feature data of every card in the deck, built once from the configuration.
+ * The features of each card are kept twice: in a flat table (featureCount entries per card) and packed into a single
+ * long. The packed form gives every feature a lane of featureSize + 1 bits: the value v of the feature sets bit v of
+ * its lane, and the top bit of each lane is a guard that stays clear. With this one-hot layout a whole candidate set is
+ * validated by or-ing and and-ing the packed words of its cards and checking all lanes at once.
+ */
+class CardCodec {
+
+    private final int featureCount;
+    private final int featureSize;
+
+    /**
+     * The weight of each feature in the card id (i.e. featureSize ^ (featureCount - 1 - feature)).
+     */
+    private final int[] weights;
+
+    /**
+     * The features of all cards: the features of card c are at [c * featureCount, (c + 1) * featureCount).
+     */
+    private final int[] features;
+
+    /**
+     * The packed features of all cards (null if the lanes of all features do not fit in a long).
+     */
+    private final long[] packed;
+
+    /**
+     * The value bits of every lane, and the guard bit of every lane.
+     */
+    private final long ones;
+    private final long guards;
+
+    CardCodec(Config config) {
+        featureCount = config.featureCount;
+        featureSize = config.featureSize;
+
+        weights = new int[featureCount];
+        for (int i = featureCount - 1, weight = 1; i >= 0; --i, weight *= featureSize)
+            weights[i] = weight;
+
+        features = new int[config.deckSize * featureCount];
+        for (int card = 0; card < config.deckSize; ++card)
+            for (int i = featureCount - 1, rest = card; i >= 0; --i, rest /= featureSize)
+                features[card * featureCount + i] = rest % featureSize;
+
+        int lane = featureSize + 1;
+        if (lane * featureCount <= Long.SIZE) {
+            long lowOnes = (1L << featureSize) - 1, allOnes = 0, allGuards = 0;
+            for (int i = 0; i < featureCount; ++i) {
+                allOnes |= lowOnes << (i * lane);
+                allGuards |= 1L << (i * lane + featureSize);
+            }
+            ones = allOnes;
+            guards = allGuards;
+
+            packed = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card)
+                for (int i = 0; i < featureCount; ++i)
+                    packed[card] |= 1L << (i * lane + feature(card, i));
+        } else {
+            ones = guards = 0;
+            packed = null;
+        }
+    }
+
+    int feature(int card, int feature) {
+        return features[card * featureCount + feature];
+    }
+
+    void features(int card, int[] out) {
+        System.arraycopy(features, card * featureCount, out, 0, featureCount);
+    }
+
+    int weight(int feature) {
+        return weights[feature];
+    }
+
+    long packed(int card) {
+        if (packed == null)
+            throw new UnsupportedOperationException(featureCount + " features of " + featureSize + " values do not fit in a long");
+        return packed[card];
+    }
+
+    /**
+     * Checks the combined packed features of featureSize cards. A lane is legal if the cards all share one value in it
+     * (the or equals the and) or if all featureSize values appear in it (the or is full). Adding the value bits to a
+     * lane carries into its guard bit iff the lane is non-zero, so both conditions are tested for all lanes at once.
+     *
+     * @param or  - the bitwise or of the packed features of the cards.
+     * @param and - the bitwise and of the packed features of the cards.
+     * @return - true iff the cards form a legal set.
+     */
+    boolean isPackedSet(long or, long and) {
+        long notSame = (or ^ and) + ones;
+        long notAll = (or ^ ones) + ones;
+        return (notSame & notAll & guards) == 0;
+    }
+
+    /**
+     * Checks if an array of cards forms a legal set, i.e. every feature is the same in all cards or different in all.
+     */
+    boolean isSet(int[] cards) {
+        if (cards.length < 2) return false; // a lone card is both the same and different in every feature
+
+        if (packed != null && cards.length == featureSize) {
+            long or = 0, and = -1;
+            for (int card : cards) {
+                or |= packed[card];
+                and &= packed[card];
+            }
+            return isPackedSet(or, and);
+        }
+
+        for (int i = 0; i < featureCount; ++i) {
+            int seen = 0;
+            for (int card : cards)
+                seen |= 1 << feature(card, i);
+            int values = Integer.bitCount(seen);
+            if (values != 1 && values != cards.length) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Computes the card completing featureSize - 1 cards into a legal set: per feature the value all of them share, or
+     * the only value none of them has if they are all different.
+     *
+     * @param cards - featureSize - 1 distinct card ids.
+     * @return - the completing card id, or -1 if no card completes them (or featureSize < 3).
+     */
+    int complete(int[] cards) {
+        if (featureSize < 3 || cards.length != featureSize - 1) return -1;
+        if (featureSize == 3) return third(cards[0], cards[1]);
+
+        int full = (1 << featureSize) - 1;
+        int card = 0;
+        for (int i = 0; i < featureCount; ++i) {
+            int seen = 0;
+            for (int c : cards)
+                seen |= 1 << feature(c, i);
+            int values = Integer.bitCount(seen);
+            if (values == 1) card += weights[i] * Integer.numberOfTrailingZeros(seen);
+            else if (values == cards.length) card += weights[i] * Integer.numberOfTrailingZeros(full & ~seen);
+            else return -1;
+        }
+        return card;
+    }
+
+    /**
+     * Computes the card completing a pair into a legal set (featureSize = 3 only): per feature the shared value if the
+     * pair agrees, otherwise the third value, i.e. (-a-b) mod 3.
+     */
+    int third(int a, int b) {
+        int card = 0;
+        for (int i = 0, fa = a * featureCount, fb = b * featureCount; i < featureCount; ++i, ++fa, ++fb)
+            card += weights[i] * (features[fa] == features[fb] ? features[fa] : 3 - features[fa] - features[fb]);
+        return card;
+    }
+}
@@ -0,0 +1,165 @@
+package bguspl.set;
+
+import javax.imageio.ImageIO;
+import java.awt.Image;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import java.util.logging.Logger;
+
+/**
+ * Makes card images on demand, in the background, and keeps the most recently used ones. Nothing is made up front:
+ * the user interface asks for a card when it is placed and gets null until the image is ready, at which point a
+ * callback lets it repaint. The dealer's next cards can be prefetched, and are made in parallel. The images are
+ * decoded from the card files (see images) or drawn (see CardRenderer).
+ * At most capacity images are kept (least recently used first out), and only softly, so the garbage collector may
+ * drop them under memory pressure; a dropped image is decoded again when needed. A card whose image cannot be made
+ * is logged once and stays null (the user interface shows it as an empty card).
+ */
+class CardImageCache {
+
+    /**
+     * Where the card images come from.
+     */
+    interface Source {
+        /**
+         * @return - the image of the card. Called on the decoder threads.
+         */
+        Image load(int card) throws IOException;
+    }
+
+    private final Config config;
+    private final Logger logger;
+    private final Source source;
+    private final UnaryOperator<Image> convert;
+    private final int capacity;
+
+    // guarded by itself, in access order
+    private final LinkedHashMap<Integer, SoftReference<Image>> images;
+    // the cards being decoded, with the callbacks waiting for them
+    private final Map<Integer, Runnable> loading = new ConcurrentHashMap<>();
+    // the cards whose image could not be made, which are not tried again
+    private final Set<Integer> failed = ConcurrentHashMap.newKeySet();
+
+    private static final AtomicInteger threads = new AtomicInteger();
+    private final ExecutorService decoders = Executors.newFixedThreadPool(
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1), task -> {
+                Thread thread = new Thread(task, "card-decoder-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /**
+     * @param convert  - applied to every decoded image (e.g. to convert it to the screen's format).
+     * @param capacity - the maximum number of images to keep.
+     */
+    CardImageCache(Logger logger, Config config, Source source, UnaryOperator<Image> convert, int capacity) {
+        this.logger = logger;
+        this.config = config;
+        this.source = source;
+        this.convert = convert;
+        this.capacity = capacity;
+        images = new LinkedHashMap<Integer, SoftReference<Image>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, SoftReference<Image>> eldest) {
+                return size() > CardImageCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param card     - the card id.
+     * @param onLoaded - called (on a decoder thread) once the image is ready, if it is not ready yet.
+     * @return - the image of the card, or null if it is being decoded or could not be made.
+     */
+    Image get(int card, Runnable onLoaded) {
+        Image image = cached(card);
+        if (image == null && !failed.contains(card))
+            load(card, onLoaded);
+        return image;
+    }
+
+    /**
+     * Starts decoding the images of the first count cards of the array that are not cached yet.
+     */
+    void prefetch(int[] cards, int count) {
+        for (int i = 0; i < count; i++) {
+            int card = cards[i];
+            if (card >= 0 && card < config.deckSize && cached(card) == null && !failed.contains(card))
+                load(card, null);
+        }
+    }
+
+    private Image cached(int card) {
+        synchronized (images) {
+            SoftReference<Image> reference = images.get(card);
+            return reference == null ? null : reference.get();
+        }
+    }
+
+    private void load(int card, Runnable onLoaded) {
+        Runnable callback = onLoaded != null ? onLoaded : () -> {};
+        if (loading.putIfAbsent(card, callback) != null) {
+            // chain the callback to the decode in progress, unless it ended meanwhile
+            if (onLoaded != null && loading.computeIfPresent(card, (key, previous) -> () -> {
+                previous.run();
+                onLoaded.run();
+            }) == null) {
+                if (cached(card) != null) onLoaded.run();
+                else if (!failed.contains(card)) load(card, onLoaded);
+            }
+            return;
+        }
+        // a decode that ended between the caller's checks and putIfAbsent above has already settled the card
+        if (failed.contains(card) || cached(card) != null) {
+            Runnable callbacks = loading.remove(card); // with any chained to it meanwhile
+            if (cached(card) != null) callbacks.run();
+            return;
+        }
+        decoders.execute(() -> {
+            Image image = null;
+            try {
+                Image loaded = source.load(card);
+                if (loaded == null || (image = convert.apply(loaded)) == null)
+                    throw new IOException("no image");
+                synchronized (images) {
+                    images.put(card, new SoftReference<>(image));
+                }
+            } catch (IOException | RuntimeException e) {
+                failed.add(card);
+                logger.severe("cannot load the image of card " + card + ": " + e);
+            } finally {
+                Runnable callbacks = loading.remove(card);
+                if (image != null) callbacks.run();
+            }
+        });
+    }
+
+    /**
+     * @return - a source decoding the card files in resources/cards (named by the card's features, one digit each).
+     */
+    static Source images(Config config) {
+        return card -> {
+            String name = "cards/" + UserInterfaceSwing.intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png";
+            URL resource = CardImageCache.class.getClassLoader().getResource(name);
+            if (resource == null)
+                throw new IOException(name + " not found");
+            return ImageIO.read(resource);
+        };
+    }
+
+    /**
+     * Stops the decoder threads.
+     */
+    void shutdown() {
+        decoders.shutdownNow();
+    }
+}
@@ -0,0 +1,183 @@
+package bguspl.set;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Path2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Draws the picture of a card from its features, so any deck can be shown without an image file per card.
+ * The first four features are drawn as on the classic cards: the shape (oval, diamond, squiggle, triangle, then polygons
+ * with 5 sides and more), the color, the number of shapes (value + 1) and the shading (open, striped with decreasing
+ * gaps, and solid for the last value). Every further feature is a numbered badge at the bottom of the card.
+ * Features missing from the deck are drawn with their first value.
+ */
+class CardRenderer implements CardImageCache.Source {
+
+    private static final Color[] CLASSIC_COLORS = {new Color(220, 30, 50), new Color(0, 150, 70), new Color(110, 40, 160)};
+    private static final Color BACKGROUND = new Color(250, 250, 245);
+    private static final Color EMPTY = new Color(225, 225, 225);
+    private static final int MARGIN = 6;
+    private static final int BADGE = 18;
+
+    private static final int SHAPE = 0, COLOR = 1, NUMBER = 2, SHADING = 3;
+
+    private final Config config;
+    private final int width;
+    private final int height;
+
+    CardRenderer(Config config) {
+        this.config = config;
+        width = config.cellWidth;
+        height = config.cellHeight;
+    }
+
+    /**
+     * @return - the picture of an empty cell.
+     */
+    Image empty() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = graphics(image);
+        g.setColor(EMPTY);
+        g.fill(card());
+        g.dispose();
+        return image;
+    }
+
+    @Override
+    public Image load(int card) {
+        int[] features = new int[config.featureCount];
+        for (int i = config.featureCount - 1, rest = card; i >= 0; --i, rest /= config.featureSize)
+            features[i] = rest % config.featureSize;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = graphics(image);
+        g.setColor(BACKGROUND);
+        g.fill(card());
+        g.setColor(Color.lightGray);
+        g.draw(card());
+
+        int badges = Math.max(0, features.length - 4);
+        int top = MARGIN * 2;
+        int bottom = height - MARGIN * 2 - (badges > 0 ? BADGE + MARGIN : 0);
+        drawShapes(g, feature(features, SHAPE), color(feature(features, COLOR)), feature(features, NUMBER) + 1,
+                feature(features, SHADING), MARGIN * 2, top, width - MARGIN * 4, bottom - top);
+        for (int i = 0; i < badges; i++)
+            drawBadge(g, features[4 + i], MARGIN * 2 + i * (BADGE + MARGIN / 2), height - MARGIN * 2 - BADGE);
+        g.dispose();
+        return image;
+    }
+
+    private static int feature(int[] features, int feature) {
+        return feature < features.length ? features[feature] : 0;
+    }
+
+    private static Graphics2D graphics(BufferedImage image) {
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return g;
+    }
+
+    private Shape card() {
+        return new RoundRectangle2D.Double(MARGIN, MARGIN, width - 2 * MARGIN - 1, height - 2 * MARGIN - 1, 16, 16);
+    }
+
+    private static Color color(int value) {
+        if (value < CLASSIC_COLORS.length)
+            return CLASSIC_COLORS[value];
+        // spread the further colors around the hue circle by the golden angle, so neighbouring values differ most
+        return Color.getHSBColor((float) ((value * 0.618034) % 1.0), 0.85f, 0.8f);
+    }
+
+    /**
+     * Draws count shapes in rows of up to three, centered in the area.
+     */
+    private void drawShapes(Graphics2D g, int shape, Color color, int count, int shading, int x, int y, int w, int h) {
+        int rows = (count + 2) / 3;
+        int perRow = (count + rows - 1) / rows;
+        double cellW = w / (double) Math.max(perRow, 3);
+        double cellH = h / (double) rows;
+        double shapeW = Math.min(cellW * 0.7, cellH * 0.5);
+        double shapeH = Math.min(cellH * 0.85, shapeW * 2);
+
+        g.setStroke(new BasicStroke(2f));
+        for (int i = 0; i < count; i++) {
+            int row = i / perRow;
+            int inRow = row < rows - 1 ? perRow : count - row * perRow;
+            double left = x + (w - inRow * cellW) / 2 + (i % perRow) * cellW + (cellW - shapeW) / 2;
+            double top = y + row * cellH + (cellH - shapeH) / 2;
+            Shape outline = AffineTransform.getTranslateInstance(left, top).createTransformedShape(shape(shape, shapeW, shapeH));
+            fill(g, outline, color, shading);
+        }
+    }
+
+    private static Shape shape(int shape, double w, double h) {
+        Path2D.Double path = new Path2D.Double();
+        switch (shape) {
+            case 0:
+                return new RoundRectangle2D.Double(0, 0, w, h, w, w);
+            case 1:
+                path.moveTo(w / 2, 0);
+                path.lineTo(w, h / 2);
+                path.lineTo(w / 2, h);
+                path.lineTo(0, h / 2);
+                break;
+            case 2:
+                path.moveTo(0.25 * w, 0);
+                path.curveTo(0.9 * w, -0.05 * h, 1.1 * w, 0.35 * h, 0.8 * w, 0.55 * h);
+                path.curveTo(0.6 * w, 0.7 * h, 0.9 * w, 0.9 * h, 0.75 * w, h);
+                path.curveTo(0.1 * w, 1.05 * h, -0.1 * w, 0.65 * h, 0.2 * w, 0.45 * h);
+                path.curveTo(0.4 * w, 0.3 * h, 0.1 * w, 0.1 * h, 0.25 * w, 0);
+                break;
+            default:
+                // a regular polygon standing on a vertex: a triangle, then from 5 sides on (4 would be the diamond)
+                int sides = shape == 3 ? 3 : shape + 1;
+                for (int i = 0; i < sides; i++) {
+                    double angle = -Math.PI / 2 + 2 * Math.PI * i / sides;
+                    double px = w / 2 + Math.cos(angle) * w / 2;
+                    double py = h / 2 + Math.sin(angle) * h / 2;
+                    if (i == 0) path.moveTo(px, py);
+                    else path.lineTo(px, py);
+                }
+        }
+        path.closePath();
+        return path;
+    }
+
+    private void fill(Graphics2D g, Shape shape, Color color, int shading) {
+        g.setColor(color);
+        if (shading == config.featureSize - 1)
+            g.fill(shape);
+        else if (shading > 0) {
+            // stripes, denser for higher values
+            int gap = 3 * (config.featureSize - 1 - shading);
+            Shape clip = g.getClip();
+            g.clip(shape);
+            Rectangle bounds = shape.getBounds();
+            for (int sy = bounds.y; sy <= bounds.y + bounds.height; sy += gap)
+                g.drawLine(bounds.x, sy, bounds.x + bounds.width, sy);
+            g.setClip(clip);
+        }
+        g.draw(shape);
+    }
+
+    private static void drawBadge(Graphics2D g, int value, int x, int y) {
+        g.setColor(Color.darkGray);
+        g.fillOval(x, y, BADGE, BADGE);
+        g.setColor(Color.white);
+        g.setFont(new Font(Font.SANS_SERIF, Font.BOLD, BADGE * 2 / 3));
+        String text = Integer.toString(value, Character.MAX_RADIX);
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString(text, x + (BADGE - metrics.stringWidth(text)) / 2, y + (BADGE + metrics.getAscent() - metrics.getDescent()) / 2);
+    }
+}
@@ -0,0 +1,115 @@
+package bguspl.set;
+
+import bguspl.set.ex.ClaimStats;
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Logger;
+
+/**
+ * Measures how many set claims a single dealer checks per second. For every grid size and number of computer players,
+ * games are played back to back, without a user interface, table delays or freezes, for a fixed wall clock duration
+ * (the game still running at the end is terminated). Prints, per configuration, the claims submitted and checked per
+ * second, the sets found per second, the claim-to-verdict latency (and its queueing and checking parts) and the share
+ * of the time the dealer was on a CPU.
+ *
+ * Usage: ClaimBenchmark [seconds] [players,...] [RowsxColumns,...] [Key=Value ...]
+ * e.g. mvn -q compile exec:java -Dmainclass=bguspl.set.ClaimBenchmark -Dexec.args="5 1,2,4,8,16 3x4,6x6"
+ */
+public class ClaimBenchmark {
+
+    private static class Totals {
+        int games;
+        long submitted;
+        long points;
+        long cpuNanos;
+        final LatencyHistogram queue = new LatencyHistogram();
+        final LatencyHistogram check = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        String[] playerCounts = (args.length > 1 ? args[1] : "1,2,4,8").split(",");
+        String[] grids = (args.length > 2 ? args[2] : "3x4").split(",");
+
+        Logger logger = Logger.getLogger("SetClaimBenchmarkLogger");
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new ConsoleHandler());
+
+        Properties properties = Config.loadProperties("config.properties", logger);
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("PointFreezeSeconds", "0");
+        properties.setProperty("PenaltyFreezeSeconds", "0");
+        properties.setProperty("EndGamePauseSeconds", "0");
+        properties.setProperty("Hints", "False");
+        properties.setProperty("LogLevel", "WARNING");
+        for (int i = 3; i < args.length; i++) {
+            String[] pair = args[i].split("=", 2);
+            if (pair.length == 2) properties.setProperty(pair[0].trim(), pair[1].trim());
+            else logger.severe("ignoring argument " + args[i] + ", expected Key=Value.");
+        }
+
+        System.out.printf("%-7s %-7s %5s %12s %12s %10s %10s %10s %10s %10s %9s%n", "grid", "players", "games",
+                "claims/s", "checked/s", "points/s", "p50 (us)", "p99 (us)", "queue p99", "check p99", "dealer %");
+        for (String grid : grids) {
+            String[] size = grid.trim().split("x");
+            properties.setProperty("Rows", size[0]);
+            properties.setProperty("Columns", size[1]);
+            for (String players : playerCounts) {
+                properties.setProperty("ComputerPlayers", players.trim());
+                Config config = new Config(logger, properties);
+                Util util = new UtilImpl(config);
+
+                long start = System.nanoTime();
+                long end = start + TimeUnit.SECONDS.toNanos(seconds);
+                Totals totals = new Totals();
+                while (System.nanoTime() < end)
+                    play(new Env(logger, config, new UserInterfaceHeadless(), util), end, totals);
+                double wallSeconds = (System.nanoTime() - start) / 1e9;
+
+                System.out.printf("%-7s %-7d %5d %12.0f %12.0f %10.1f %10.1f %10.1f %10.1f %10.1f %9.1f%n", grid.trim(),
+                        config.players, totals.games, totals.submitted / wallSeconds, totals.total.count() / wallSeconds,
+                        totals.points / wallSeconds, totals.total.percentile(50) / 1e3,
+                        totals.total.percentile(99) / 1e3, totals.queue.percentile(99) / 1e3,
+                        totals.check.percentile(99) / 1e3, totals.cpuNanos / 1e9 / wallSeconds * 100);
+            }
+        }
+    }
+
+    /**
+     * Plays one game on a new dealer thread, terminating it at the end of the measurement, and adds its statistics.
+     */
+    private static void play(Env env, long end, Totals totals) throws InterruptedException {
+        Table table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread dealerThread = new Thread(dealer, "dealer");
+        dealerThread.start();
+        long left = end - System.nanoTime();
+        if (left > 0)
+            TimeUnit.NANOSECONDS.timedJoin(dealerThread, left);
+        if (dealerThread.isAlive())
+            dealer.terminate();
+        dealerThread.join();
+
+        totals.games++;
+        ClaimStats stats = dealer.claimStats();
+        totals.submitted += stats.getClaimsSubmitted();
+        for (Player player : players)
+            totals.points += player.score();
+        totals.cpuNanos += Math.max(dealer.cpuNanos(), 0);
+        totals.queue.add(stats.latency(ClaimStats.Stage.QUEUE));
+        totals.check.add(stats.latency(ClaimStats.Stage.CHECK));
+        totals.total.add(stats.latency(ClaimStats.Stage.TOTAL));
+    }
+}
@@ -0,0 +1,72 @@
+package bguspl.set;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The source of game time: the turn timeout, the countdown, the freezes and the table delays are all measured with it.
+ * The game normally runs on the system clock; headless simulations run on a scaled clock that runs faster.
+ */
+public interface Clock {
+
+    /**
+     * The wall clock.
+     */
+    Clock SYSTEM = new Clock() {
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long realNanos(long millis) {
+            return TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    };
+
+    /**
+     * @return - the current game time in milliseconds.
+     */
+    long millis();
+
+    /**
+     * @param millis - an interval of game time in milliseconds.
+     * @return - the real time in nanoseconds it takes this clock to advance by the interval.
+     */
+    long realNanos(long millis);
+
+    /**
+     * Sleeps for an interval of game time (not at all if it is not positive).
+     *
+     * @param millis - the interval in milliseconds.
+     */
+    default void sleep(long millis) throws InterruptedException {
+        long nanos = realNanos(millis);
+        if (nanos > 0)
+            TimeUnit.NANOSECONDS.sleep(nanos);
+    }
+
+    /**
+     * A scaled clock that starts at the current time and runs speed times faster than the wall clock. It is still
+     * driven by the wall clock (it does not jump to the next event), so results depend on the timing of the host.
+     *
+     * @param speed - the number of game milliseconds per real millisecond.
+     */
+    static Clock scaled(double speed) {
+        if (!(speed > 0))
+            throw new IllegalArgumentException("clock speed must be positive: " + speed);
+
+        long originMillis = System.currentTimeMillis();
+        long originNanos = System.nanoTime();
+        return new Clock() {
+            @Override
+            public long millis() {
+                return originMillis + (long) ((System.nanoTime() - originNanos) * speed / 1_000_000);
+            }
+
+            @Override
+            public long realNanos(long millis) {
+                return (long) (millis * 1_000_000 / speed);
+            }
+        };
+    }
+}
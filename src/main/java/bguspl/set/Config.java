@@ -86,6 +86,66 @@ public class Config {
      */
     public final long endGamePauseMillies;
 
+    /**
+     * The locking strategy of the table: "Stamped" (optimistic reads, default), "Striped" (a lock per group of slots)
+     * or "ReaderWriter" (a single monitor)
+     */
+    public final String tableLock;
+
+    /**
+     * The number of lock stripes of the "Striped" table lock (slot i is guarded by stripe i % tableLockStripes)
+     */
+    public final int tableLockStripes;
+
+    /**
+     * The maximum number of key presses waiting for each player
+     */
+    public final int actionQueueCapacity;
+
+    /**
+     * What to do with a key press when the player's queue is full: "block" (wait for room, default), "drop-newest"
+     * (ignore the key press) or "drop-oldest" (discard the oldest waiting key press)
+     */
+    public final String actionQueuePolicy;
+
+    /**
+     * How the player loops and the AI input generators run: "platform" (a thread each, default) or "virtual" (virtual
+     * threads, needs Java 21 or later)
+     */
+    public final String executionMode;
+
+    /**
+     * The file to append a snapshot of the game metrics to periodically (none if empty, default)
+     */
+    public final String metricsFile;
+
+    /**
+     * The interval between metrics snapshots
+     */
+    public final long metricsPeriodMillis;
+
+    /**
+     * The maximum number of times per second the user interface shows the game's changes (0 to show every change
+     * immediately, from the thread that made it)
+     */
+    public final int uiFramesPerSecond;
+
+    /**
+     * The maximum number of decoded card images to keep (at least twice the table size are kept)
+     */
+    public final int cardImageCacheSize;
+
+    /**
+     * The number of cards beyond the ones being placed whose images are prepared in advance
+     */
+    public final int cardPrefetchAhead;
+
+    /**
+     * How the cards are pictured: "images" (the png files in resources/cards, only for the classic deck), "drawn"
+     * (from their features, for any deck) or "auto" (images for the classic deck, drawn otherwise, default)
+     */
+    public final String cardRenderer;
+
     /**
      * The names of the players to display on the screen
      * Note: if there are more players than names, the remaining players will be called "Player 3", "Player 4", etc.
@@ -155,7 +215,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -211,6 +271,21 @@ public class Config {
         tableDelayMillis = (long) (Double.parseDouble(properties.getProperty("TableDelaySeconds", "0.1")) * 1000.0);
         endGamePauseMillies = (long) (Double.parseDouble(properties.getProperty("EndGamePauseSeconds", "5")) * 1000.0);
 
+        // performance settings
+        tableLock = properties.getProperty("TableLock", "Stamped").trim();
+        actionQueueCapacity = Math.max(1, Integer.parseInt(properties.getProperty("ActionQueueCapacity", "3")));
+        actionQueuePolicy = properties.getProperty("ActionQueuePolicy", "block").trim();
+        executionMode = properties.getProperty("ExecutionMode", "platform").trim();
+        metricsFile = properties.getProperty("MetricsFile", "").trim();
+        metricsPeriodMillis = (long) (Double.parseDouble(properties.getProperty("MetricsPeriodSeconds", "10")) * 1000.0);
+        uiFramesPerSecond = Math.min(1000, Math.max(0, Integer.parseInt(properties.getProperty("UiFramesPerSecond", "60"))));
+        cardImageCacheSize = Integer.parseInt(properties.getProperty("CardImageCacheSize", "64"));
+        cardPrefetchAhead = Math.max(0, Integer.parseInt(properties.getProperty("CardPrefetchAhead", "6")));
+        String renderer = properties.getProperty("CardRenderer", "auto").trim();
+        if (renderer.equals("auto"))
+            renderer = featureSize == 3 && featureCount == 4 ? "images" : "drawn";
+        cardRenderer = renderer;
+
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
         playerNames = new String[players];
@@ -225,6 +300,10 @@ public class Config {
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
 
+        // a stripe per slot unless configured otherwise
+        int stripes = Integer.parseInt(properties.getProperty("TableLockStripes", "0"));
+        tableLockStripes = stripes > 0 ? Math.min(stripes, tableSize) : tableSize;
+
         // keyboard input data
         playerKeys = new int[players][rows * columns];
         for (int i = 0; i < players; i++) {
@@ -0,0 +1,160 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hosts many independent games of computer players in one JVM. Every game has its own environment, table, dealer and
+ * players; the dealers run on a bounded pool of threads, so at most that many tables are played at once and the other
+ * games wait their turn. The host aggregates the results of all the games it played.
+ */
+public class GameHost implements AutoCloseable {
+
+    /**
+     * The outcome of one game.
+     */
+    public static class Result {
+        public final int game;
+        public final int[] scores;
+        public final int[] penalties;
+        public final long wallNanos;
+        public final long gameMillis;
+
+        private Result(int game, Player[] players, long wallNanos, long gameMillis) {
+            this.game = game;
+            scores = new int[players.length];
+            penalties = new int[players.length];
+            for (int i = 0; i < players.length; i++) {
+                scores[i] = players[i].score();
+                penalties[i] = players[i].penalties();
+            }
+            this.wallNanos = wallNanos;
+            this.gameMillis = gameMillis;
+        }
+
+        /**
+         * @return - the number of sets found in the game.
+         */
+        public int points() {
+            int points = 0;
+            for (int score : scores) points += score;
+            return points;
+        }
+
+        public int penaltyCount() {
+            int count = 0;
+            for (int penalty : penalties) count += penalty;
+            return count;
+        }
+
+        public int bestScore() {
+            int best = 0;
+            for (int score : scores) best = Math.max(best, score);
+            return best;
+        }
+    }
+
+    private final ExecutorService executor;
+    private final long startNanos;
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder points = new LongAdder();
+    private final LongAdder penalties = new LongAdder();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder gameMillis = new LongAdder();
+
+    /**
+     * @param tables - the maximum number of games played at the same time.
+     */
+    public GameHost(int tables) {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(tables, task -> new Thread(task, "dealer-" + threads.incrementAndGet()));
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Schedules a game of computer players.
+     *
+     * @param env - the environment of the game (not shared with any other running game).
+     * @return - the result of the game, once it is over.
+     */
+    public Future<Result> submit(Env env) {
+        int game = submitted.incrementAndGet();
+        return executor.submit(() -> play(game, env));
+    }
+
+    private Result play(int game, Env env) {
+        Table table = new Table(env);
+        Player[] players = new Player[env.config.players];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        running.incrementAndGet();
+        long gameStart = env.clock.millis();
+        long wallStart = System.nanoTime();
+        try {
+            dealer.run();
+        } finally {
+            running.decrementAndGet();
+        }
+        Result result = new Result(game, players, System.nanoTime() - wallStart, env.clock.millis() - gameStart);
+
+        completed.increment();
+        points.add(result.points());
+        penalties.add(result.penaltyCount());
+        wallNanos.add(result.wallNanos);
+        gameMillis.add(result.gameMillis);
+        return result;
+    }
+
+    public int running() {
+        return running.get();
+    }
+
+    public long completed() {
+        return completed.sum();
+    }
+
+    /**
+     * @return - the number of games completed per second since the host started.
+     */
+    public double throughput() {
+        return completed.sum() / ((System.nanoTime() - startNanos) / 1e9);
+    }
+
+    /**
+     * @return - a summary of all the games completed so far.
+     */
+    public String metrics() {
+        long games = completed.sum();
+        double perGame = Math.max(games, 1);
+        return String.format("%d games completed (%d running) in %.2f s: %.1f games/s, on average %.1f ms, "
+                        + "%.1f game seconds, %.1f sets and %.1f penalties per game",
+                games, running.get(), (System.nanoTime() - startNanos) / 1e9, throughput(), wallNanos.sum() / 1e6 / perGame,
+                gameMillis.sum() / 1000.0 / perGame, points.sum() / perGame, penalties.sum() / perGame);
+    }
+
+    /**
+     * Waits for all the submitted games to end and releases the threads of the host.
+     * If interrupted, stops waiting (the games still end on their own) and keeps the interrupt status.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -5,7 +5,10 @@ import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -49,15 +52,17 @@ public class Main {
         UserInterface ui = null;
         try {
             ui = new UserInterfaceSwing(logger, config, players);
+            if (config.uiFramesPerSecond > 0) ui = new UserInterfaceDispatcher(ui, config);
         } catch (UnsupportedOperationException | IllegalArgumentException e) {
             logger.severe("error creating swing user interface: " + e.getMessage());
             logger.severe("will try to run without user interface");
             if (config.humanPlayers > 0)
                 logger.severe("warning: running with human players with no user interface");
         }
-        ui = new UserInterfaceDecorator(logger, util, ui);
+        Metrics metrics = new Metrics();
+        ui = new UserInterfaceDecorator(logger, util, ui, metrics);
 
-        Env env = new Env(logger, config, ui, util);
+        Env env = new Env(logger, config, ui, util, Clock.SYSTEM, metrics);
 
         // create the game entities
         Table table = new Table(env);
@@ -79,7 +84,7 @@ public class Main {
             System.out.println("Thanks for playing... it was fun!");
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             if (!xButtonPressed) env.ui.dispose();
-            for (Handler h : logger.getHandlers()) h.flush();
+            for (Handler h : logger.getHandlers()) h.close();
         }
     }
 
@@ -87,11 +92,13 @@ public class Main {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            // the records are written in batches by a background thread, so logging never waits for the disk
+            handler = new AsyncHandler(new OutputStreamWriter(new FileOutputStream(
+                    "./logs/" + format.format(Calendar.getInstance().getTime()) + ".log"), StandardCharsets.UTF_8));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -108,10 +115,11 @@ public class Main {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+            // not synchronized: it keeps no state, and an AsyncHandler calls it from its writer thread only
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
-                        lr.getLevel().getLocalizedName(), lr.getMessage()
+                        lr.getLevel().getLocalizedName(), formatMessage(lr)
                 );
             }
         }));
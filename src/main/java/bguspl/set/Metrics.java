@@ -0,0 +1,206 @@
+package bguspl.set;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * The live statistics of a game: named counters (events that happened so far, e.g. "tokens.placed") and gauges
+ * (values read when asked, e.g. "deck.cards"). While the game runs, every metric is an attribute of the MBean
+ * bguspl.set:type=Metrics,game=N, and if configured a snapshot of all of them is appended to a file periodically.
+ */
+public class Metrics implements DynamicMBean {
+
+    private static final AtomicInteger games = new AtomicInteger();
+
+    // one daemon thread writes the snapshots of all the games
+    private static final ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "metrics-dump");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ConcurrentSkipListMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+
+    private int game;
+    private ObjectName name;
+    private ScheduledFuture<?> dump;
+    private String file;
+    private Logger logger;
+
+    // the counters at the previous snapshot, for their rates
+    private Map<String, Long> previous = Collections.emptyMap();
+    private long previousNanos;
+
+    /**
+     * @return - the counter with the given name, created on first use.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Defines (or redefines) a gauge.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * @return - the current value of every counter and gauge, by name.
+     */
+    public SortedMap<String, Long> snapshot() {
+        SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((key, counter) -> values.put(key, counter.sum()));
+        gauges.forEach((key, gauge) -> values.put(key, gauge.getAsLong()));
+        return values;
+    }
+
+    /**
+     * Registers the MBean and starts the periodic snapshots, until close is called. Failures are only logged.
+     *
+     * @param file         - the file to append the snapshots to (none if null or empty).
+     * @param periodMillis - the interval between snapshots (none if not positive).
+     */
+    public synchronized void publish(Logger logger, String file, long periodMillis) {
+        this.logger = logger;
+        game = games.incrementAndGet();
+        try {
+            name = new ObjectName("bguspl.set:type=Metrics,game=" + game);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warning("cannot register the metrics: " + e);
+            name = null;
+        }
+        if (file != null && !file.isEmpty() && periodMillis > 0) {
+            this.file = file;
+            previousNanos = System.nanoTime();
+            dump = dumper.scheduleAtFixedRate(this::dump, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic snapshots after writing a last one, and unregisters the MBean.
+     */
+    public synchronized void close() {
+        if (dump != null) {
+            dump.cancel(false);
+            dump = null;
+            dump();
+        }
+        if (name != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+            } catch (JMException e) {
+                logger.warning("cannot unregister the metrics: " + e);
+            }
+            name = null;
+        }
+    }
+
+    /**
+     * Appends one line with every metric, and the rate per second of every counter since the previous line.
+     */
+    private synchronized void dump() {
+        long now = System.nanoTime();
+        double seconds = Math.max(now - previousNanos, 1) / 1e9;
+        SortedMap<String, Long> values = snapshot();
+        Map<String, Long> current = new HashMap<>();
+        StringBuilder line = new StringBuilder(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date()));
+        line.append(" game=").append(game);
+        values.forEach((key, value) -> {
+            line.append(' ').append(key).append('=').append(value);
+            if (counters.containsKey(key)) {
+                current.put(key, value);
+                line.append(String.format(" %s/s=%.1f", key, (value - previous.getOrDefault(key, 0L)) / seconds));
+            }
+        });
+        line.append(System.lineSeparator());
+        previous = current;
+        previousNanos = now;
+
+        try {
+            synchronized (Metrics.class) { // games may share the file
+                Files.write(Paths.get(file), line.toString().getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+        } catch (IOException e) {
+            logger.warning("cannot write the metrics to " + file + ": " + e);
+        }
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = counters.get(attribute);
+        if (counter != null) return counter.sum();
+        LongSupplier gauge = gauges.get(attribute);
+        if (gauge != null) return gauge.getAsLong();
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException ignored) {}
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        SortedMap<String, Long> values = snapshot();
+        MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[values.size()];
+        int i = 0;
+        for (String key : values.keySet())
+            attributes[i++] = new MBeanAttributeInfo(key, "long", counters.containsKey(key) ? "counter" : "gauge",
+                    true, false, false);
+        return new MBeanInfo(getClass().getName(), "live game statistics", attributes, null, null, null);
+    }
+}
@@ -0,0 +1,129 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Finds legal sets in a collection of cards.
+ * For any featureSize >= 3, a legal set is fully determined by all of its cards but one: every feature of the missing
+ * card is either the value shared by the others (if they are all the same) or the single value none of them has (if
+ * they are all different). So instead of testing every featureSize-combination of the cards, only the combinations of
+ * featureSize - 1 cards are walked, and the completing card is computed arithmetically and probed in a bitset of the
+ * cards present. For featureSize = 3 this is a plain O(n^2) loop over pairs.
+ */
+class SetFinder {
+
+    private final Config config;
+    private final CardCodec codec;
+
+    SetFinder(Config config, CardCodec codec) {
+        this.config = config;
+        this.codec = codec;
+    }
+
+    /**
+     * Finds up to count sets in the given cards.
+     *
+     * @param cards - the card ids (distinct, each between 0 and config.deckSize - 1).
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count sets, each one sorted in ascending card order.
+     */
+    List<int[]> findSets(int[] cards, int count) {
+        LinkedList<int[]> sets = new LinkedList<>();
+        int r = config.featureSize;
+        if (count <= 0 || r < 2 || cards.length < r) return sets; // a single card is never a set (see testSet)
+
+        long[] present = new long[(config.deckSize + 63) >>> 6];
+        for (int card : cards)
+            present[card >>> 6] |= 1L << card;
+
+        if (r == 3) findTriples(cards, present, count, sets);
+        else search(cards, present, count, sets, new int[r], new int[r][config.featureCount], 0, 0);
+        return sets;
+    }
+
+    /**
+     * The featureSize = 3 case: every pair has exactly one completing card. A set is reported only from the pair of
+     * its two smallest cards, so each one is found exactly once.
+     */
+    private void findTriples(int[] cards, long[] present, int count, List<int[]> sets) {
+        for (int i = 0; i < cards.length - 1; ++i)
+            for (int j = i + 1; j < cards.length; ++j) {
+                int a = Math.min(cards[i], cards[j]);
+                int b = Math.max(cards[i], cards[j]);
+                int c = codec.third(a, b);
+                if (c > b && (present[c >>> 6] & (1L << c)) != 0) {
+                    sets.add(new int[]{a, b, c});
+                    if (sets.size() >= count) return;
+                }
+            }
+    }
+
+    /**
+     * The general case: a depth first search over combinations of cards, pruning every branch in which some feature is
+     * neither the same in all chosen cards nor different in all of them. With featureSize >= 3 the last card is not
+     * searched but computed from the others.
+     *
+     * @return - true iff count sets were found and the search should stop.
+     */
+    private boolean search(int[] cards, long[] present, int count, List<int[]> sets,
+                           int[] chosen, int[][] seen, int depth, int from) {
+        int r = config.featureSize;
+        if (depth == r) {
+            sets.add(sorted(chosen.clone()));
+            return sets.size() >= count;
+        }
+        if (depth == r - 1 && r >= 3) {
+            int last = complete(seen[depth - 1]);
+            if (last > max(chosen, depth) && (present[last >>> 6] & (1L << last)) != 0) {
+                chosen[depth] = last;
+                return search(cards, present, count, sets, chosen, seen, depth + 1, from);
+            }
+            return false;
+        }
+
+        int searched = r >= 3 ? r - 1 : r; // the number of cards picked from the input
+        for (int i = from; i <= cards.length - (searched - depth); ++i) {
+            int card = cards[i];
+            boolean legal = true;
+            for (int f = 0; f < config.featureCount && legal; ++f) {
+                int mask = (depth == 0 ? 0 : seen[depth - 1][f]) | (1 << codec.feature(card, f));
+                int values = Integer.bitCount(mask);
+                legal = values == 1 || values == depth + 1; // sameSame or butDifferent so far
+                seen[depth][f] = mask;
+            }
+            if (legal) {
+                chosen[depth] = card;
+                if (search(cards, present, count, sets, chosen, seen, depth + 1, i + 1)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Computes the card completing featureSize - 1 cards whose features are (per feature) all the same or all
+     * different, given the bitmask of values seen in each feature.
+     */
+    private int complete(int[] seen) {
+        int full = (1 << config.featureSize) - 1;
+        int card = 0;
+        for (int f = 0; f < config.featureCount; ++f) {
+            int mask = Integer.bitCount(seen[f]) == 1 ? seen[f] : full & ~seen[f];
+            card += codec.weight(f) * Integer.numberOfTrailingZeros(mask);
+        }
+        return card;
+    }
+
+    private static int max(int[] cards, int length) {
+        int max = -1;
+        for (int i = 0; i < length; ++i)
+            max = Math.max(max, cards[i]);
+        return max;
+    }
+
+    private static int[] sorted(int[] cards) {
+        Arrays.sort(cards);
+        return cards;
+    }
+}
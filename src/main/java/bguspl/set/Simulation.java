@@ -0,0 +1,76 @@
+package bguspl.set;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.Logger;
+
+/**
+ * Plays full games of computer players without a user interface and without table delays, as fast as the CPU allows.
+ * Game time (turn timeouts and freezes) runs on a scaled clock that is a given number of times faster than the wall
+ * clock, and several games can be played at once on a GameHost. Prints the statistics of every game and a summary.
+ *
+ * Usage: Simulation [games] [clock speed] [parallel games] [Key=Value ...]
+ * The configuration is read from config.properties; all its players play as computer players, and any Key=Value
+ * argument overrides a configuration property.
+ */
+public class Simulation {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1000;
+        int first = 2;
+        int parallel = 1;
+        if (args.length > 2 && !args[2].contains("=")) {
+            parallel = Integer.parseInt(args[2]);
+            first = 3;
+        }
+
+        Logger logger = Logger.getLogger("SetSimulationLogger");
+        logger.setUseParentHandlers(false);
+        logger.addHandler(new ConsoleHandler());
+
+        Properties properties = Config.loadProperties("config.properties", logger);
+        int players = Integer.parseInt(properties.getProperty("HumanPlayers", "2"))
+                + Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(players));
+        properties.setProperty("TableDelaySeconds", "0");
+        properties.setProperty("EndGamePauseSeconds", "0");
+        properties.setProperty("Hints", "False");
+        properties.setProperty("LogLevel", "WARNING");
+        for (int i = first; i < args.length; i++) {
+            String[] pair = args[i].split("=", 2);
+            if (pair.length == 2) properties.setProperty(pair[0].trim(), pair[1].trim());
+            else logger.severe("ignoring argument " + args[i] + ", expected Key=Value.");
+        }
+
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        System.out.printf("simulating %d games of %d computer players at %.0fx clock speed, %d at a time%n",
+                games, config.players, speed, parallel);
+
+        GameHost host = new GameHost(parallel);
+        List<Future<GameHost.Result>> results = new ArrayList<>();
+        for (int game = 0; game < games; game++)
+            results.add(host.submit(new Env(logger, config, new UserInterfaceHeadless(), util, Clock.scaled(speed))));
+
+        try {
+            for (Future<GameHost.Result> future : results) {
+                GameHost.Result result = future.get();
+                System.out.printf("game %d: %.1f ms, %.1f game seconds, %d sets, %d penalties, best score %d%n",
+                        result.game, result.wallNanos / 1e6, result.gameMillis / 1000.0, result.points(),
+                        result.penaltyCount(), result.bestScore());
+            }
+        } catch (ExecutionException e) {
+            logger.severe("a game failed: " + e.getCause());
+        } finally {
+            host.close();
+        }
+        System.out.println(host.metrics());
+    }
+}
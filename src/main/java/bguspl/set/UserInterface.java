@@ -80,6 +80,13 @@ public interface UserInterface {
      */
     void announceWinner(int[] players);
 
+    /**
+     * Hints that the specified cards will be placed soon, so their images can be prepared in advance.
+     * @param cards - the card ids, the ones to be placed first first (the array may be reused after the call).
+     * @param count - the number of cards at the start of the array to prepare.
+     */
+    default void prefetchCards(int[] cards, int count) {}
+
     /**
      * Programmatically closes the window.
      */
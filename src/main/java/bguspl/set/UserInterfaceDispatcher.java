@@ -0,0 +1,254 @@
+package bguspl.set;
+
+import javax.swing.Timer;
+import java.awt.EventQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Decouples the game threads from a Swing user interface. The game threads only record the latest state of every
+ * slot, timer and player in atomic arrays and mark it dirty, which never blocks. A Swing timer applies the changes on
+ * the event dispatch thread in frames, at most framesPerSecond times a second: every slot, timer or player that
+ * changed since the last frame is updated once, with its latest state (last write wins), so a burst of updates costs
+ * one repaint.
+ */
+public class UserInterfaceDispatcher implements UserInterface {
+
+    private static final int NO_CARD = -1;
+    private static final long NO_TIMER = -1;
+    private static final long TIMER_WARN = 1;    // timer = millis << 2 | mode
+    private static final long TIMER_ELAPSED = 2;
+
+    private final UserInterface ui;
+    private final int players;
+    private final int playerWords;
+
+    // the latest state, written by the game threads
+    private final AtomicIntegerArray cards;
+    private final AtomicLongArray tokens; // bit p % 64 of word s * playerWords + p / 64: player p has a token on slot s
+    private final AtomicLong timer = new AtomicLong(NO_TIMER);
+    private final AtomicLongArray freezes;
+    private final AtomicIntegerArray scores;
+
+    // what changed since the last frame
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicLongArray dirtySlots;
+    private final AtomicLongArray dirtyPlayers;
+    private final AtomicBoolean timerDirty = new AtomicBoolean();
+
+    // the state shown, used by the event dispatch thread only
+    private final int[] shownCards;
+    private final long[] shownTokens;
+    private final long[] shownFreezes;
+    private final int[] shownScores;
+
+    private final Timer frames;
+
+    public UserInterfaceDispatcher(UserInterface ui, Config config) {
+        this(ui, config.players, config.tableSize, config.uiFramesPerSecond);
+    }
+
+    /**
+     * @param framesPerSecond - how often to apply the changes (if not positive, only when applyFrame is called).
+     */
+    UserInterfaceDispatcher(UserInterface ui, int players, int tableSize, int framesPerSecond) {
+        this.ui = ui;
+        this.players = players;
+        playerWords = (players + 63) >>> 6;
+
+        cards = new AtomicIntegerArray(tableSize);
+        tokens = new AtomicLongArray(tableSize * playerWords);
+        freezes = new AtomicLongArray(players);
+        scores = new AtomicIntegerArray(players);
+        dirtySlots = new AtomicLongArray((tableSize + 63) >>> 6);
+        dirtyPlayers = new AtomicLongArray(playerWords);
+
+        shownCards = new int[tableSize];
+        shownTokens = new long[tableSize * playerWords];
+        shownFreezes = new long[players];
+        shownScores = new int[players];
+        for (int slot = 0; slot < tableSize; slot++) {
+            cards.set(slot, NO_CARD);
+            shownCards[slot] = NO_CARD;
+        }
+
+        if (framesPerSecond > 0) {
+            frames = new Timer(1000 / framesPerSecond, e -> applyFrame());
+            frames.start();
+        } else
+            frames = null;
+    }
+
+    private static void setBit(AtomicLongArray words, int index, long bit) {
+        long word;
+        while (((word = words.get(index)) & bit) == 0 && !words.compareAndSet(index, word, word | bit));
+    }
+
+    private static void clearBit(AtomicLongArray words, int index, long bit) {
+        long word;
+        while (((word = words.get(index)) & bit) != 0 && !words.compareAndSet(index, word, word & ~bit));
+    }
+
+    private void changed() {
+        if (!dirty.get())
+            dirty.set(true);
+    }
+
+    private void slotChanged(int slot) {
+        setBit(dirtySlots, slot >>> 6, 1L << slot);
+        changed();
+    }
+
+    private void playerChanged(int player) {
+        setBit(dirtyPlayers, player >>> 6, 1L << player);
+        changed();
+    }
+
+    @Override
+    public void placeCard(int card, int slot) {
+        cards.set(slot, card);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeCard(int slot) {
+        cards.set(slot, NO_CARD);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void placeToken(int player, int slot) {
+        setBit(tokens, slot * playerWords + (player >>> 6), 1L << player);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeTokens() {
+        for (int slot = 0; slot < cards.length(); slot++)
+            removeTokens(slot);
+    }
+
+    @Override
+    public void removeTokens(int slot) {
+        for (int word = 0; word < playerWords; word++)
+            tokens.set(slot * playerWords + word, 0);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void removeToken(int player, int slot) {
+        clearBit(tokens, slot * playerWords + (player >>> 6), 1L << player);
+        slotChanged(slot);
+    }
+
+    @Override
+    public void setCountdown(long millies, boolean warn) {
+        timer.set(Math.max(millies, 0) << 2 | (warn ? TIMER_WARN : 0));
+        timerDirty.set(true);
+        changed();
+    }
+
+    @Override
+    public void setElapsed(long millies) {
+        timer.set(Math.max(millies, 0) << 2 | TIMER_ELAPSED);
+        timerDirty.set(true);
+        changed();
+    }
+
+    @Override
+    public void setFreeze(int player, long millies) {
+        freezes.set(player, millies);
+        playerChanged(player);
+    }
+
+    @Override
+    public void setScore(int player, int score) {
+        scores.set(player, score);
+        playerChanged(player);
+    }
+
+    @Override
+    public void prefetchCards(int[] cards, int count) {
+        ui.prefetchCards(cards, count); // decoding happens in the background, no need to wait for a frame
+    }
+
+    @Override
+    public void announceWinner(int[] players) {
+        EventQueue.invokeLater(() -> {
+            applyFrame();
+            ui.announceWinner(players);
+        });
+    }
+
+    @Override
+    public void dispose() {
+        if (frames != null)
+            frames.stop();
+        EventQueue.invokeLater(ui::dispose);
+    }
+
+    /**
+     * Shows everything that changed since the last frame. Called on the event dispatch thread.
+     */
+    void applyFrame() {
+        if (!dirty.getAndSet(false))
+            return;
+
+        for (int index = 0; index < dirtySlots.length(); index++) {
+            for (long slots = dirtySlots.getAndSet(index, 0); slots != 0; slots &= slots - 1)
+                applySlot((index << 6) + Long.numberOfTrailingZeros(slots));
+        }
+
+        if (timerDirty.getAndSet(false)) {
+            long value = timer.get();
+            if ((value & TIMER_ELAPSED) != 0)
+                ui.setElapsed(value >>> 2);
+            else
+                ui.setCountdown(value >>> 2, (value & TIMER_WARN) != 0);
+        }
+
+        for (int index = 0; index < dirtyPlayers.length(); index++) {
+            for (long changed = dirtyPlayers.getAndSet(index, 0); changed != 0; changed &= changed - 1) {
+                int player = (index << 6) + Long.numberOfTrailingZeros(changed);
+                long freeze = freezes.get(player);
+                if (freeze != shownFreezes[player]) {
+                    ui.setFreeze(player, freeze);
+                    shownFreezes[player] = freeze;
+                }
+                int score = scores.get(player);
+                if (score != shownScores[player]) {
+                    ui.setScore(player, score);
+                    shownScores[player] = score;
+                }
+            }
+        }
+    }
+
+    private void applySlot(int slot) {
+        int card = cards.get(slot);
+        if (card != shownCards[slot]) {
+            if (card == NO_CARD)
+                ui.removeCard(slot);
+            else
+                ui.placeCard(card, slot);
+            shownCards[slot] = card;
+        }
+
+        for (int word = 0; word < playerWords; word++) {
+            int index = slot * playerWords + word;
+            long now = tokens.get(index);
+            for (long changed = now ^ shownTokens[index]; changed != 0; changed &= changed - 1) {
+                int player = (word << 6) + Long.numberOfTrailingZeros(changed);
+                if (player >= players)
+                    break;
+                if ((now & (1L << player)) != 0)
+                    ui.placeToken(player, slot);
+                else
+                    ui.removeToken(player, slot);
+            }
+            shownTokens[index] = now;
+        }
+    }
+}
@@ -4,9 +4,11 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -32,7 +34,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
         this.config = config;
         timerPanel = new TimerPanel();
-        gamePanel = new GamePanel();
+        gamePanel = new GamePanel(logger);
         playersPanel = new PlayersPanel();
         winnerPanel = new WinnerPanel();
 
@@ -103,72 +105,92 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     private class GamePanel extends JLayeredPane {
 
         private final Image emptyCard;
-        private final Image[] deck;
-        private final Image[][] grid;
-        private final boolean[][][] playerTokens;
-        private final JLabel[][] tokenText;
+        private final CardImageCache deck;
+        private final int[][] grid; // the card in each cell, or NO_CARD
+        private static final int NO_CARD = -1;
+        private final BitSet[][] playerTokens; // the players with a token in each cell
+        private final String[][] tokenText; // the text of playerTokens, rebuilt only when the cell's tokens change
+        private final Color tokenColor;
 
         private Image loadImageResource(String filename) {
             URL imageResource = getClass().getClassLoader().getResource(filename);
             if (imageResource == null)
                 throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
+            return toCompatibleImage(new ImageIcon(imageResource).getImage());
         }
 
-        private GamePanel() {
-
-            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+        // copies an image into the pixel format of the screen, so drawing it is a plain copy instead of a conversion
+        private Image toCompatibleImage(Image image) {
+            if (GraphicsEnvironment.isHeadless() || image.getWidth(null) <= 0 || image.getHeight(null) <= 0)
+                return image;
+            GraphicsConfiguration configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+            BufferedImage compatible = configuration.createCompatibleImage(image.getWidth(null), image.getHeight(null),
+                    Transparency.TRANSLUCENT);
+            Graphics2D g = compatible.createGraphics();
+            g.drawImage(image, 0, 0, null);
+            g.dispose();
+            return compatible;
+        }
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
+        private GamePanel(Logger logger) {
 
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
-            emptyCard = loadImageResource("cards/empty_card.png");
+            setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
+            setFont(UIManager.getFont("Label.font"));
+            tokenColor = UIManager.getColor("Label.foreground");
+
+            // the card pictures are decoded from the png files or drawn from their features when first needed
+            CardImageCache.Source source;
+            if (config.cardRenderer.equals("drawn")) {
+                CardRenderer renderer = new CardRenderer(config);
+                source = renderer;
+                emptyCard = toCompatibleImage(renderer.empty());
+            } else {
+                assert config.featureSize < 10; // otherwise there will be naming conflicts
+                source = CardImageCache.images(config);
+                emptyCard = loadImageResource("cards/empty_card.png");
+            }
+            deck = new CardImageCache(logger, config, source, this::toCompatibleImage,
+                    Math.max(config.cardImageCacheSize, 2 * config.tableSize));
 
-            grid = new Image[config.rows][config.columns];
-            tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
+            // init the cards on the table grid as empty cards, without tokens
+            grid = new int[config.rows][config.columns];
+            tokenText = new String[config.rows][config.columns];
+            playerTokens = new BitSet[config.rows][config.columns];
             for (int row = 0; row < config.rows; row++) {
-                for (int column = 0; column < config.columns; column++) {
-                    // init the cards on the table grid as empty cards
-                    grid[row][column] = emptyCard;
-
-                    // init the JLabel selection overlay
-                    tokenText[row][column] = new JLabel("");
-                    tokenText[row][column].setVerticalAlignment(JLabel.TOP);
-                    tokenText[row][column].setHorizontalAlignment(JLabel.CENTER);
-                    tokenText[row][column].setOpaque(false);
-                    tokenText[row][column].setBorder(BorderFactory.createLineBorder(Color.black));
-                    tokenText[row][column].setBounds((column * config.cellWidth), (row * config.cellHeight), config.cellWidth, config.cellHeight);
-                    add(tokenText[row][column]);
-                }
+                Arrays.fill(grid[row], NO_CARD);
+                Arrays.fill(tokenText[row], "");
+                for (int column = 0; column < config.columns; column++)
+                    playerTokens[row][column] = new BitSet(config.players);
             }
         }
 
+        // repaints only the cell of the slot
+        private void repaintSlot(int row, int column) {
+            repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
+        }
+
         private void placeCard(int slot, int card) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
+            grid[row][column] = card;
+            repaintSlot(row, column);
         }
 
         private void removeCard(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
+            grid[row][column] = NO_CARD;
+            repaintSlot(row, column);
         }
 
         private void placeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            if (playerTokens[row][column].get(player))
+                return;
+            playerTokens[row][column].set(player);
+            updateTokenText(row, column);
         }
 
         private void removeTokens() {
@@ -179,36 +201,72 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         private void removeTokens(int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
-            }
+            if (playerTokens[row][column].isEmpty())
+                return;
+            playerTokens[row][column].clear();
+            updateTokenText(row, column);
         }
 
         private void removeToken(int player, int slot) {
             int row = slot / config.columns;
             int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            if (!playerTokens[row][column].get(player))
+                return;
+            playerTokens[row][column].clear(player);
+            updateTokenText(row, column);
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
+        private void updateTokenText(int row, int column) {
+            tokenText[row][column] = generatePlayersTokenText(playerTokens[row][column]);
+            repaintSlot(row, column);
+        }
+
+        private String generatePlayersTokenText(BitSet players) {
+            StringBuilder builder = new StringBuilder();
+            for (int player = players.nextSetBit(0); player >= 0; player = players.nextSetBit(player + 1)) {
+                if (builder.length() > 0)
+                    builder.append(", ");
+                builder.append(config.playerNames[player]);
             }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+            return builder.toString();
+        }
+
+        // the image of the card in a cell, or of an empty card until it is decoded (the cell is repainted then)
+        private Image cardImage(int row, int column) {
+            int card = grid[row][column];
+            if (card == NO_CARD)
+                return emptyCard;
+            Image image = deck.get(card, () -> repaintSlot(row, column));
+            return image != null ? image : emptyCard;
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            // draw the cells in the repainted area only: the card image, the border and the tokens text on top
+            Rectangle clip = g.getClipBounds();
+            if (clip == null)
+                clip = new Rectangle(getSize());
+            int firstRow = Math.max(0, clip.y / config.cellHeight);
+            int lastRow = Math.min(config.rows - 1, (clip.y + clip.height - 1) / config.cellHeight);
+            int firstColumn = Math.max(0, clip.x / config.cellWidth);
+            int lastColumn = Math.min(config.columns - 1, (clip.x + clip.width - 1) / config.cellWidth);
+
+            FontMetrics metrics = g.getFontMetrics(getFont());
+            g.setFont(getFont());
+            for (int row = firstRow; row <= lastRow; row++) {
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    int x = column * config.cellWidth;
+                    int y = row * config.cellHeight;
+                    g.drawImage(cardImage(row, column), x, y, this);
+                    g.setColor(Color.black);
+                    g.drawRect(x, y, config.cellWidth - 1, config.cellHeight - 1);
+                    String text = tokenText[row][column];
+                    if (!text.isEmpty()) {
+                        g.setColor(tokenColor);
+                        g.drawString(text, x + (config.cellWidth - metrics.stringWidth(text)) / 2, y + 1 + metrics.getAscent());
+                    }
+                }
+            }
         }
     }
 
@@ -274,34 +332,42 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
     }
 
+    // the game panel is used by the event dispatch thread only, so the game threads queue their changes to it
+    private static void onDispatchThread(Runnable change) {
+        if (EventQueue.isDispatchThread())
+            change.run();
+        else
+            EventQueue.invokeLater(change);
+    }
+
     @Override
     public void placeCard(int card, int slot) {
-        gamePanel.placeCard(slot, card);
+        onDispatchThread(() -> gamePanel.placeCard(slot, card));
     }
 
     @Override
     public void removeCard(int slot) {
-        gamePanel.removeCard(slot);
+        onDispatchThread(() -> gamePanel.removeCard(slot));
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        gamePanel.placeToken(player, slot);
+        onDispatchThread(() -> gamePanel.placeToken(player, slot));
     }
 
     @Override
     public void removeTokens() {
-        gamePanel.removeTokens();
+        onDispatchThread(() -> gamePanel.removeTokens());
     }
 
     @Override
     public void removeTokens(int slot) {
-        gamePanel.removeTokens(slot);
+        onDispatchThread(() -> gamePanel.removeTokens(slot));
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        gamePanel.removeToken(player, slot);
+        onDispatchThread(() -> gamePanel.removeToken(player, slot));
     }
 
     @Override
@@ -331,8 +397,14 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         winnerPanel.setVisible(true);
     }
 
+    @Override
+    public void prefetchCards(int[] cards, int count) {
+        gamePanel.deck.prefetch(cards, count);
+    }
+
     @Override
     public void dispose() {
+        gamePanel.deck.shutdown();
         super.dispose();
     }
 }
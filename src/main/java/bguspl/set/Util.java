@@ -24,13 +24,50 @@ public interface Util {
     int[][] cardsToFeatures(int[] cards);
 
     /**
-     * Checks if an array of cards forms a legal set.
+     * Returns a single feature of a card (see cardToFeatures method) without allocating.
+     *
+     * @param card    - the card id.
+     * @param feature - the feature index (between 0 and config.featureCount - 1).
+     * @return - the value of the feature (between 0 and config.featureSize - 1).
+     */
+    int cardFeature(int card, int feature);
+
+    /**
+     * Returns the features of a card packed into a long: each feature gets a lane of config.featureSize + 1 bits, in
+     * which the bit of its value is set. Cards are combined by or-ing and and-ing their packed features (see
+     * testPackedSet method).
+     *
+     * @param card - the card id.
+     * @return - the packed features of the card.
+     * @throws UnsupportedOperationException - if config.featureCount * (config.featureSize + 1) exceeds 64 bits.
+     */
+    long packedFeatures(int card);
+
+    /**
+     * Checks if config.featureSize cards form a legal set, given their combined packed features.
+     *
+     * @param or  - the bitwise or of the packed features of the cards (see packedFeatures method).
+     * @param and - the bitwise and of the packed features of the cards.
+     * @return - true iff the cards form a legal set.
+     */
+    boolean testPackedSet(long or, long and);
+
+    /**
+     * Checks if an array of cards forms a legal set (without allocating).
      *
      * @param cards - the array of cards.
      * @return - true iff the array forms a legal set.
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Computes the only card that completes the given cards into a legal set (without allocating).
+     *
+     * @param cards - an array of config.featureSize - 1 distinct card ids.
+     * @return - the id of the completing card, or -1 if there is none (or config.featureSize < 3).
+     */
+    int completeSet(int[] cards);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +77,15 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Finds and returns up to count sets in the given array of cards.
+     *
+     * @param cards - an array of distinct card ids.
+     * @param count - the maximum number of sets to find.
+     * @return - a list of up to count integer arrays, each one contains the card ids of a legal set.
+     */
+    List<int[]> findSets(int[] cards, int count);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
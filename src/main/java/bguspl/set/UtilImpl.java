@@ -1,10 +1,7 @@
 package bguspl.set;
 
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.stream.IntStream;
 
 /**
  * The implementation of the UserInterface interface.
@@ -12,82 +9,67 @@ import java.util.stream.IntStream;
 public class UtilImpl implements Util {
 
     private final Config config;
+    private final CardCodec codec;
+    private final SetFinder setFinder;
 
     public UtilImpl(Config config) {
         this.config = config;
-    }
-
-    private void cardToFeatures(int card, int[] features) {
-        for (int i = config.featureCount - 1; i >= 0; --i) {
-            features[i] = card % config.featureSize;
-            card /= config.featureSize;
-        }
+        this.codec = new CardCodec(config);
+        this.setFinder = new SetFinder(config, codec);
     }
 
     @Override
     public int[] cardToFeatures(int card) {
         int[] features = new int[config.featureCount];
-        cardToFeatures(card, features);
+        codec.features(card, features);
         return features;
     }
 
     @Override
     public int[][] cardsToFeatures(int[] cards) {
         int[][] features = new int[cards.length][config.featureCount];
-        IntStream.range(0, cards.length).forEach(i -> cardToFeatures(cards[i], features[i]));
+        for (int i = 0; i < cards.length; ++i)
+            codec.features(cards[i], features[i]);
         return features;
     }
 
     @Override
-    public boolean testSet(int[] cards) {
-        int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
-        for (int i = 0; i < config.featureCount; ++i) {
-            boolean sameSame = true, butDifferent = true;
-
-            // check if this features is sameSame in all cards
-            for (int j = 1; j < features.length; ++j)
-                if (features[0][i] != features[j][i]) {
-                    sameSame = false;
-                    break;
-                }
+    public int cardFeature(int card, int feature) {
+        return codec.feature(card, feature);
+    }
 
-            // check if this feature is butDifferent in all cards
-            for (int j = 1; j < features.length; ++j)
-                for (int k = j; k < features.length; ++k)
-                    if (features[j - 1][i] == features[k][i]) {
-                        butDifferent = false;
-                        break;
-                    }
+    @Override
+    public long packedFeatures(int card) {
+        return codec.packed(card);
+    }
 
-            if (sameSame == butDifferent) return false;
-        }
-        return true;
+    @Override
+    public boolean testPackedSet(long or, long and) {
+        return codec.isPackedSet(or, and);
     }
 
     @Override
-    public List<int[]> findSets(List<Integer> deck, int count) {
-        LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
+    public boolean testSet(int[] cards) {
+        return codec.isSet(cards);
+    }
 
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
+    @Override
+    public int completeSet(int[] cards) {
+        return codec.complete(cards);
+    }
 
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
-            }
+    @Override
+    public List<int[]> findSets(List<Integer> deck, int count) {
+        int[] cards = new int[deck.size()];
+        int i = 0;
+        for (int card : deck)
+            cards[i++] = card;
+        return findSets(cards, count);
+    }
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
-        }
-        return sets;
+    @Override
+    public List<int[]> findSets(int[] cards, int count) {
+        return setFinder.findSets(cards, count);
     }
 
     public void spin() {
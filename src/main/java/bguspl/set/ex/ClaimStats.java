@@ -0,0 +1,175 @@
+package bguspl.set.ex;
+
+import bguspl.set.LatencyHistogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Where the time between a player claiming a set and getting the verdict goes, per stage, for every player and
+ * overall. The dealer records the stages of each claim it checks; the statistics can be read while the game runs,
+ * through this class or through JMX.
+ */
+public class ClaimStats implements ClaimStatsMXBean {
+
+    /**
+     * The stages of a claim, each measured from the end of the previous one.
+     */
+    public enum Stage {
+        QUEUE,    // from the claim to the dealer taking it from the queue
+        CHECK,    // the dealer checking the set is on the table and legal
+        NOTIFY,   // removing the cards of a legal set and waking the player
+        TOTAL     // from the claim to the player being woken
+    }
+
+    private static final AtomicInteger games = new AtomicInteger();
+
+    private final LatencyHistogram[] overall;
+    private final LatencyHistogram[][] perPlayer;
+    private final LongAdder submitted = new LongAdder();
+    private ObjectName name;
+
+    public ClaimStats(int players) {
+        overall = histograms();
+        perPlayer = new LatencyHistogram[players][];
+        for (int i = 0; i < players; i++)
+            perPlayer[i] = histograms();
+    }
+
+    private static LatencyHistogram[] histograms() {
+        LatencyHistogram[] histograms = new LatencyHistogram[Stage.values().length];
+        for (int i = 0; i < histograms.length; i++)
+            histograms[i] = new LatencyHistogram();
+        return histograms;
+    }
+
+    void submitted() {
+        submitted.increment();
+    }
+
+    /**
+     * Records the stages of a checked claim (all times are System.nanoTime() values).
+     */
+    void checked(int player, long claimed, long dequeued, long checked, long notified) {
+        record(player, Stage.QUEUE, dequeued - claimed);
+        record(player, Stage.CHECK, checked - dequeued);
+        record(player, Stage.NOTIFY, notified - checked);
+        record(player, Stage.TOTAL, notified - claimed);
+    }
+
+    private void record(int player, Stage stage, long nanos) {
+        overall[stage.ordinal()].record(nanos);
+        perPlayer[player][stage.ordinal()].record(nanos);
+    }
+
+    public LatencyHistogram latency(Stage stage) {
+        return overall[stage.ordinal()];
+    }
+
+    public LatencyHistogram latency(int player, Stage stage) {
+        return perPlayer[player][stage.ordinal()];
+    }
+
+    /**
+     * Publishes the statistics as an MBean until unregister is called (a failure is only logged).
+     */
+    void register(Logger logger) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            name = new ObjectName("bguspl.set:type=ClaimStats,game=" + games.incrementAndGet());
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            logger.warning("cannot register the claim statistics: " + e);
+            name = null;
+        }
+    }
+
+    void unregister(Logger logger) {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException e) {
+            logger.warning("cannot unregister the claim statistics: " + e);
+        }
+        name = null;
+    }
+
+    @Override
+    public long getClaimsSubmitted() {
+        return submitted.sum();
+    }
+
+    @Override
+    public long getClaimsChecked() {
+        return latency(Stage.TOTAL).count();
+    }
+
+    @Override
+    public double getQueueP50Micros() {
+        return micros(Stage.QUEUE, 50);
+    }
+
+    @Override
+    public double getQueueP99Micros() {
+        return micros(Stage.QUEUE, 99);
+    }
+
+    @Override
+    public double getCheckP50Micros() {
+        return micros(Stage.CHECK, 50);
+    }
+
+    @Override
+    public double getCheckP99Micros() {
+        return micros(Stage.CHECK, 99);
+    }
+
+    @Override
+    public double getNotifyP99Micros() {
+        return micros(Stage.NOTIFY, 99);
+    }
+
+    @Override
+    public double getTotalP50Micros() {
+        return micros(Stage.TOTAL, 50);
+    }
+
+    @Override
+    public double getTotalP99Micros() {
+        return micros(Stage.TOTAL, 99);
+    }
+
+    @Override
+    public double getTotalMaxMicros() {
+        return latency(Stage.TOTAL).max() / 1e3;
+    }
+
+    @Override
+    public String[] getPlayers() {
+        String[] players = new String[perPlayer.length];
+        for (int i = 0; i < players.length; i++)
+            players[i] = "player " + i + ": " + latency(i, Stage.TOTAL);
+        return players;
+    }
+
+    private double micros(Stage stage, double percent) {
+        return latency(stage).percentile(percent) / 1e3;
+    }
+
+    /**
+     * @return - the overall latency summary of every stage.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(getClaimsSubmitted()).append(" claims submitted");
+        for (Stage stage : Stage.values())
+            builder.append(", ").append(stage.name().toLowerCase()).append(" ").append(latency(stage));
+        return builder.toString();
+    }
+}
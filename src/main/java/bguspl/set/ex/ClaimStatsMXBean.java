@@ -0,0 +1,33 @@
+package bguspl.set.ex;
+
+/**
+ * The claim statistics of a running game, as shown by JMX consoles (e.g. jconsole, under bguspl.set:type=ClaimStats).
+ * Latencies are in microseconds, per stage of a claim (see ClaimStats.Stage).
+ */
+public interface ClaimStatsMXBean {
+
+    long getClaimsSubmitted();
+
+    long getClaimsChecked();
+
+    double getQueueP50Micros();
+
+    double getQueueP99Micros();
+
+    double getCheckP50Micros();
+
+    double getCheckP99Micros();
+
+    double getNotifyP99Micros();
+
+    double getTotalP50Micros();
+
+    double getTotalP99Micros();
+
+    double getTotalMaxMicros();
+
+    /**
+     * @return - the total latency summary of every player.
+     */
+    String[] getPlayers();
+}
@@ -2,12 +2,12 @@ package bguspl.set.ex;
 
 import bguspl.set.Env;
 
-import java.util.Collections;
-
-import java.util.List;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.PriorityQueue;
 import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
@@ -27,9 +27,9 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
 
     /**
      * True iff game should be terminated.
@@ -41,35 +41,78 @@ public class Dealer implements Runnable {
      */
     private long reshuffleTime = Long.MAX_VALUE;
 
+    /**
+     * The interval between countdown display updates once the warning time is reached (the countdown then shows
+     * hundredths of a second, more frequent updates are not noticeable).
+     */
+    private static final long WARNING_DISPLAY_PERIOD_MILLIS = 50;
+
+    /**
+     * The things the dealer has to do at a given time, besides checking claimed sets.
+     */
+    private enum Event { DISPLAY, WARNING, RESHUFFLE }
+
+    private static class Deadline implements Comparable<Deadline> {
+        final long time;
+        final Event event;
+
+        Deadline(long time, Event event) {
+            this.time = time;
+            this.event = event;
+        }
+
+        @Override
+        public int compareTo(Deadline other) {
+            return Long.compare(time, other.time);
+        }
+    }
+
+    /**
+     * The upcoming deadlines of the current round, earliest first.
+     */
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>();
+
     // Added
     protected setsQueue setQ;
-    private Thread dealerThread;
+    private volatile Thread dealerThread;
     private Thread[] playersThreads;
-    protected Object[] locks;
     private int[] slotsOrder;
+    private final int[] prefetch; // the cards to prepare the images of, reused
     private Random rand;
-    private boolean firstSleep;
+    private long wakeups;
+
+    // where the time from each claim to its verdict goes, and the dealer thread's CPU time
+    private final ClaimStats claimStats;
+    private volatile long cpuNanos = -1;
+    private final LongAdder reshuffles;
 
     public Dealer(Env env, Table table, Player[] players) {
         this.env = env;
         this.table = table;
         this.players = players;
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        deck = new Deck(env.config.deckSize);
 
         //added
         terminate = false;
         playersThreads = new Thread[env.config.players];
         setQ = new setsQueue();
-        locks = new Object[env.config.players];
-        for (int i = 0; i < locks.length; i++){
-            locks[i] = new Object();
-        }
         slotsOrder = new int[env.config.tableSize];
+        prefetch = new int[env.config.tableSize + env.config.cardPrefetchAhead];
         for (int i = 0; i < slotsOrder.length; i++){
             slotsOrder[i] = i;
         }
         rand = new Random();
-        firstSleep = true;
+        claimStats = new ClaimStats(env.config.players);
+
+        // live statistics
+        reshuffles = env.metrics.counter("dealer.reshuffles");
+        env.metrics.gauge("deck.cards", deck::size);
+        env.metrics.gauge("table.cards", table::countCards);
+        env.metrics.gauge("claims.pending", () -> claimStats.getClaimsSubmitted() - claimStats.getClaimsChecked());
+        env.metrics.gauge("lock.player.contended", () -> table.rw.stats().playerContended());
+        env.metrics.gauge("lock.player.waitMillis", () -> table.rw.stats().playerWaitNanos() / 1_000_000);
+        env.metrics.gauge("lock.dealer.contended", () -> table.rw.stats().dealerContended());
+        env.metrics.gauge("lock.dealer.waitMillis", () -> table.rw.stats().dealerWaitNanos() / 1_000_000);
     }
 
     /**
@@ -80,12 +123,17 @@ public class Dealer implements Runnable {
 
         // Added
         dealerThread = Thread.currentThread();
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean measureCpu = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+        long cpuStart = measureCpu ? threadBean.getCurrentThreadCpuTime() : 0;
 
         env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+        claimStats.register(env.logger);
+        env.metrics.publish(env.logger, env.config.metricsFile, env.config.metricsPeriodMillis);
 
         // create and run the player threads
         for (int i = 0; i < playersThreads.length; i++){
-            playersThreads[i] = new Thread(players[i]);
+            playersThreads[i] = Threads.newThread(env, players[i], "player-" + i);
         }
         for (int i = 0; i < playersThreads.length; i++){
             playersThreads[i].start();
@@ -94,7 +142,7 @@ public class Dealer implements Runnable {
         while (!shouldFinish()) {
 
             // Added
-            Collections.shuffle(deck);
+            deck.shuffle(rand);
             
             //in order to place the cards in random order on table
             shuffleArray(slotsOrder);
@@ -107,6 +155,7 @@ public class Dealer implements Runnable {
             timerLoop();
             table.setCanPlaceToken(false);
             removeAllCardsFromTable();
+            reshuffles.increment();
         }
 
         table.setCanPlaceToken(true);
@@ -122,6 +171,13 @@ public class Dealer implements Runnable {
             } catch (InterruptedException e) {}
         }
 
+        env.logger.info("table lock (" + env.config.tableLock + ") " + table.rw.stats());
+        if (measureCpu)
+            cpuNanos = threadBean.getCurrentThreadCpuTime() - cpuStart;
+        env.logger.info("dealer woke up " + wakeups + " times.");
+        env.logger.info("claims: " + claimStats);
+        claimStats.unregister(env.logger);
+        env.metrics.close();
         env.logger.info("thread " + Thread.currentThread().getName() + " terminated.");
     }
 
@@ -132,17 +188,70 @@ public class Dealer implements Runnable {
 
         // Added
         if (env.config.turnTimeoutMillis > 0)
-            reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
+            reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
         else 
-            reshuffleTime = System.currentTimeMillis();
+            reshuffleTime = env.clock.millis();
 
-        firstSleep = true;
+        scheduleDeadlines();
 
-        while (!terminate && (env.config.turnTimeoutMillis <= 0 || System.currentTimeMillis() < reshuffleTime) && (env.config.turnTimeoutMillis > 0 || table.doSetExists())) {
+        while (!terminate && (env.config.turnTimeoutMillis <= 0 || env.clock.millis() < reshuffleTime) && (env.config.turnTimeoutMillis > 0 || table.doSetExists())) {
             sleepUntilWokenOrTimeout();
-            updateTimerDisplay(false);
-            removeCardsFromTable();
-            placeCardsOnTable();
+            wakeups++;
+
+            // handle the deadlines that passed, the loop condition handles the reshuffle
+            long now = env.clock.millis();
+            boolean display = false;
+            while (!deadlines.isEmpty() && deadlines.peek().time <= now)
+                display |= deadlines.poll().event != Event.RESHUFFLE;
+            if (display){
+                updateTimerDisplay(false);
+                scheduleDisplay(now);
+            }
+
+            // check the claimed sets, if any
+            if (!setQ.isEmpty()){
+                removeCardsFromTable();
+                placeCardsOnTable();
+            }
+        }
+    }
+
+    /**
+     * Schedules the deadlines of a new countdown: the reshuffle, the start of the warning time and the next display
+     * update.
+     */
+    private void scheduleDeadlines() {
+        deadlines.clear();
+        long now = env.clock.millis();
+        if (env.config.turnTimeoutMillis > 0){
+            deadlines.add(new Deadline(reshuffleTime, Event.RESHUFFLE));
+            long warningTime = reshuffleTime - env.config.turnTimeoutWarningMillis;
+            if (warningTime > now)
+                deadlines.add(new Deadline(warningTime, Event.WARNING));
+        }
+        scheduleDisplay(now);
+    }
+
+    /**
+     * Schedules the next display update: when the shown number of seconds changes, or every
+     * WARNING_DISPLAY_PERIOD_MILLIS during the warning time. Nothing is shown if there is no timer.
+     */
+    private void scheduleDisplay(long now) {
+
+        // if timer goes up
+        if (env.config.turnTimeoutMillis == 0)
+            deadlines.add(new Deadline(now + 1000 - (now - reshuffleTime) % 1000, Event.DISPLAY));
+
+        // if timer goes down
+        else if (env.config.turnTimeoutMillis > 0){
+            long delta = reshuffleTime - now;
+            if (delta <= env.config.turnTimeoutWarningMillis)
+                deadlines.add(new Deadline(Math.min(now + WARNING_DISPLAY_PERIOD_MILLIS, reshuffleTime), Event.DISPLAY));
+            else {
+                long next = reshuffleTime - (delta - 1) / 1000 * 1000;
+                if (reshuffleTime - next > env.config.turnTimeoutWarningMillis) // else the warning deadline comes first
+                    deadlines.add(new Deadline(next, Event.DISPLAY));
+            }
         }
     }
 
@@ -152,6 +261,8 @@ public class Dealer implements Runnable {
     public void terminate() {
         env.ui.dispose();
         terminate = true;
+        if (dealerThread != null)
+            LockSupport.unpark(dealerThread);
     }
 
     /**
@@ -160,7 +271,7 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || env.util.findSets(deck.toArray(), 1).size() == 0;
     }
 
     /**
@@ -168,59 +279,53 @@ public class Dealer implements Runnable {
      */
     private void removeCardsFromTable() {
 
-        Triple<Integer, int[], int[]> toCheck = setQ.take();
+        // check all the claims made so far as one batch, in the order they were made
+        for (setsQueue.Node claim = setQ.drain(); claim != null; claim = claim.next){
 
-        while (toCheck != null){
+            long dequeued = System.nanoTime();
 
             // extract data from the triple
+            Triple<Integer, int[], int[]> toCheck = claim.set;
             int playerId = toCheck.getFirst();
             int[] cards = toCheck.getSecond();
             int[] slots = toCheck.getThird();
 
             boolean toUpdateTimer = false;
+            long checked;
 
             // check if the cards in the set are still on the table
             if (table.isSetRelevant(cards, slots)){
 
                 // check if legal set and give penalty or point
                 boolean legalSet = env.util.testSet(cards);
+                checked = System.nanoTime();
                 toUpdateTimer = legalSet;
                 players[playerId].toScore(legalSet);
 
                 // remove the cards from the table if the set was legal
                 if (legalSet){
-                    for (int j = 0; j < slots.length; j++){
-                        table.removeCard(slots[j]);
-
-                        // remove all the tokens from the removed cards
-                        table.rw.dealerLock();
-                        for (int i = 0; i < players.length; i++){
-                            players[i].removeToken(slots[j]);
-                        }
-                        table.rw.dealerUnlock();
-                    }
+                    // remove the cards and all the tokens on them
+                    table.removeCards(slots);
                     shuffleArray(slotsOrder);
                 }
             }
-            else 
+            else {
+                checked = System.nanoTime();
                 players[playerId].toScore(null);
-
-            // wake player and pop from queue
-            synchronized(locks[playerId]) {
-                players[playerId].needToWait = false;
-                locks[playerId].notifyAll();
             }
 
+            // wake player
+            players[playerId].release();
+            claimStats.checked(playerId, claim.claimedNanos, dequeued, checked, System.nanoTime());
+
             if (toUpdateTimer) {
                 updateTimerDisplay(true);
-                if (env.config.turnTimeoutMillis > 0){
-                    reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
-                    firstSleep = true;
-                }
+                if (env.config.turnTimeoutMillis > 0)
+                    reshuffleTime = env.clock.millis() + env.config.turnTimeoutMillis;
                 else 
-                    reshuffleTime = System.currentTimeMillis();
+                    reshuffleTime = env.clock.millis();
+                scheduleDeadlines();
             } 
-            toCheck = setQ.take();
         }
     }
 
@@ -232,12 +337,19 @@ public class Dealer implements Runnable {
         // to know if new cards were placed
         int deckSize = deck.size();
 
-        // For each slot that equals null, remove the first card in the deck and place it on the table in random order
-        for (int i = 0; i < slotsOrder.length && deck.size() > 0; i++){
+        // let the user interface prepare the images of the cards that will be placed now and of the next ones
+        int empty = 0;
+        for (int slot = 0; slot < slotsOrder.length; slot++)
+            if (table.cardAt(slot) == Table.EMPTY) empty++;
+        if (empty > 0)
+            env.ui.prefetchCards(prefetch, deck.peek(prefetch, empty + env.config.cardPrefetchAhead));
+
+        // For each empty slot, draw the top card in the deck and place it on the table in random order
+        for (int i = 0; i < slotsOrder.length && !deck.isEmpty(); i++){
             //if there is no card in this place
-            if (table.slotToCard[slotsOrder[i]] == null){
+            if (table.cardAt(slotsOrder[i]) == Table.EMPTY){
                 //put a new card
-                int card = deck.remove(0);
+                int card = deck.draw();
                 table.placeCard(card, slotsOrder[i]); 
             }
         }
@@ -251,39 +363,23 @@ public class Dealer implements Runnable {
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the next deadline or until a set is claimed (or the game is terminated).
      */
     private void sleepUntilWokenOrTimeout() {
         
         // if the queue isn't empty, don't sleep
-        if (setQ.isEmpty()){
+        if (setQ.isEmpty() && !terminate){
 
-            // if there isn't time to update, wait until interrupted
-            if(env.config.turnTimeoutMillis < 0){
-                try {
-                    synchronized(this) {this.wait();}
-                } catch (InterruptedException e) {}
-            }
-            
-            // if timer goes up
-            else if (env.config.turnTimeoutMillis == 0){
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {}
-            }
-            
-            // if timer goes down
+            // if there is no deadline, wait until a set is claimed
+            Deadline next = deadlines.peek();
+            if (next == null)
+                LockSupport.park(this);
             else {
-                try {
-                    long timeleft = reshuffleTime - System.currentTimeMillis();
-                    if (!firstSleep && timeleft > env.config.turnTimeoutWarningMillis)
-                        Thread.sleep(1000);
-                    else
-                        Thread.sleep(10);
-                } catch (InterruptedException e) {}
+                long timeleft = next.time - env.clock.millis();
+                if (timeleft > 0)
+                    LockSupport.parkNanos(this, env.clock.realNanos(timeleft));
             }
         }
-        firstSleep = false;
     }
 
     /**
@@ -305,7 +401,7 @@ public class Dealer implements Runnable {
 
             // if timer goes down
             if(env.config.turnTimeoutMillis > 0){
-                long delta = reshuffleTime - System.currentTimeMillis();
+                long delta = reshuffleTime - env.clock.millis();
                 if (delta > 0)
                     env.ui.setCountdown(delta, delta <= env.config.turnTimeoutWarningMillis);
                 else
@@ -314,7 +410,7 @@ public class Dealer implements Runnable {
 
             // if timer goes up
             else if (env.config.turnTimeoutMillis == 0)
-                env.ui.setElapsed(System.currentTimeMillis() - reshuffleTime);
+                env.ui.setElapsed(env.clock.millis() - reshuffleTime);
         }     
     }
 
@@ -326,15 +422,9 @@ public class Dealer implements Runnable {
         table.addToDeck(this);
         shuffleArray(slotsOrder);
 
+        // remove the cards and all the tokens on them
         for (int slot = 0; slot < env.config.tableSize; slot++){
             table.removeCard(slotsOrder[slot]);
-
-            // remove all the tokens from the removed cards
-            table.rw.dealerLock();
-            for (int i = 0; i < players.length; i++){
-                players[i].removeToken(slotsOrder[slot]);
-            }
-            table.rw.dealerUnlock();
         }
     }
 
@@ -371,8 +461,24 @@ public class Dealer implements Runnable {
 
     // Added
     public void pushToTestSet(Triple<Integer, int[], int[]> triple){
+        claimStats.submitted();
         setQ.put(triple);
-        dealerThread.interrupt();
+        LockSupport.unpark(dealerThread);
+    }
+
+    /**
+     * @return - the claims made so far and the latency of each stage of checking them, per player and overall.
+     */
+    public ClaimStats claimStats() {
+        return claimStats;
+    }
+
+    /**
+     * @return - the CPU time the dealer thread used, in nanoseconds, once the game is over (-1 before that, or if the
+     *           JVM does not measure thread CPU time).
+     */
+    public long cpuNanos() {
+        return cpuNanos;
     }
 
     public void addCard(int card){
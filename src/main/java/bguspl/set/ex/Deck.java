@@ -0,0 +1,123 @@
+package bguspl.set.ex;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * The dealer's deck: a ring buffer of card ids. Cards are drawn from the head and returned to the tail, and the whole
+ * deck is shuffled in place, so none of its operations allocate.
+ *
+ * @inv 0 <= size <= cards.length
+ * @inv 0 <= head < cards.length
+ */
+public class Deck {
+
+    /**
+     * The card ids in the deck, starting at head and wrapping around the end of the array.
+     */
+    private final int[] cards;
+    private int head;
+    private int size;
+
+    /**
+     * Creates a full deck holding the cards 0 to deckSize - 1 in order.
+     *
+     * @param deckSize - the number of cards in the game.
+     */
+    public Deck(int deckSize) {
+        cards = new int[deckSize];
+        for (int card = 0; card < deckSize; card++)
+            cards[card] = card;
+        size = deckSize;
+    }
+
+    /**
+     * @return - the number of cards left in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes and returns the card at the top of the deck.
+     *
+     * @throws NoSuchElementException if the deck is empty.
+     */
+    public int draw() {
+        if (size == 0)
+            throw new NoSuchElementException("the deck is empty");
+        int card = cards[head];
+        head = head + 1 == cards.length ? 0 : head + 1;
+        size--;
+        return card;
+    }
+
+    /**
+     * Returns a card to the bottom of the deck.
+     *
+     * @param card - a card id that is not in the deck.
+     * @throws IllegalStateException if the deck already holds all the cards.
+     */
+    public void add(int card) {
+        if (size == cards.length)
+            throw new IllegalStateException("the deck is full");
+        cards[index(size)] = card;
+        size++;
+    }
+
+    /**
+     * Shuffles the cards in the deck in place (Fisher-Yates).
+     *
+     * @param random - the source of randomness.
+     */
+    public void shuffle(Random random) {
+        for (int i = size - 1; i > 0; i--) {
+            int a = index(i);
+            int b = index(random.nextInt(i + 1));
+            int temp = cards[a];
+            cards[a] = cards[b];
+            cards[b] = temp;
+        }
+    }
+
+    /**
+     * @return - a new array of the cards in the deck, from top to bottom.
+     */
+    public int[] toArray() {
+        return peek(size);
+    }
+
+    /**
+     * @param count - the number of cards to look at.
+     * @return - a new array of the top count cards of the deck (or all of them, if there are fewer), from the top down.
+     */
+    public int[] peek(int count) {
+        int[] output = new int[Math.max(0, Math.min(count, size))];
+        peek(output, output.length);
+        return output;
+    }
+
+    /**
+     * Like peek(count), without allocating.
+     * @param output - where to copy the cards to, from the top down.
+     * @param count  - the number of cards to look at (at most output.length).
+     * @return       - the number of cards copied (fewer than count if the deck has fewer cards).
+     */
+    public int peek(int[] output, int count) {
+        count = Math.max(0, Math.min(count, size));
+        int first = Math.min(count, cards.length - head);
+        System.arraycopy(cards, head, output, 0, first);
+        System.arraycopy(cards, 0, output, first, count - first);
+        return count;
+    }
+
+    // the position in the array of the i-th card from the top
+    private int index(int i) {
+        int index = head + i;
+        return index >= cards.length ? index - cards.length : index;
+    }
+}
@@ -0,0 +1,88 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the freezes of all players on one shared scheduler thread. A freeze updates the player's countdown in the ui
+ * only when the displayed number of seconds changes, and releases the frozen player when it ends, so a frozen player
+ * just blocks without polling.
+ */
+final class FreezeTimer {
+
+    private static final ScheduledExecutorService shared = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "freeze-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FreezeTimer() {}
+
+    /**
+     * A running freeze of one player.
+     */
+    static class Freeze implements Runnable {
+
+        private final Env env;
+        private final int player;
+        private final ScheduledExecutorService scheduler;
+        private final long endTime;
+        private final CountDownLatch ended = new CountDownLatch(1);
+
+        private Freeze(Env env, int player, long millis, ScheduledExecutorService scheduler) {
+            this.env = env;
+            this.player = player;
+            this.scheduler = scheduler;
+            endTime = env.clock.millis() + millis;
+        }
+
+        /**
+         * Shows the remaining time rounded up to whole seconds, and schedules the next update for when that number
+         * drops (or ends the freeze).
+         */
+        @Override
+        public void run() {
+            long remaining = endTime - env.clock.millis();
+            if (remaining <= 0) {
+                env.ui.setFreeze(player, 0);
+                ended.countDown();
+                return;
+            }
+            long seconds = (remaining + 999) / 1000;
+            env.ui.setFreeze(player, seconds * 1000);
+            scheduler.schedule(this, Math.max(env.clock.realNanos(remaining - (seconds - 1) * 1000), 1), TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Blocks until the freeze ends.
+         */
+        void await() throws InterruptedException {
+            ended.await();
+        }
+    }
+
+    /**
+     * Freezes a player and shows the countdown in the ui.
+     *
+     * @param env    - the game environment objects.
+     * @param player - the player id.
+     * @param millis - the length of the freeze.
+     * @return - the freeze, to wait for it to end.
+     */
+    static Freeze start(Env env, int player, long millis) {
+        return start(env, player, millis, shared);
+    }
+
+    /**
+     * Freezes a player, running the countdown on the given scheduler.
+     */
+    static Freeze start(Env env, int player, long millis, ScheduledExecutorService scheduler) {
+        Freeze freeze = new Freeze(env, player, millis, scheduler);
+        freeze.run();
+        return freeze;
+    }
+}
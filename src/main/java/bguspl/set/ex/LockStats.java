@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention counters of a table lock, for comparing locking strategies under load.
+ */
+class LockStats {
+
+    private final LongAdder playerAcquires = new LongAdder();
+    private final LongAdder playerContended = new LongAdder();
+    private final LongAdder playerWaitNanos = new LongAdder();
+    private final LongAdder dealerAcquires = new LongAdder();
+    private final LongAdder dealerContended = new LongAdder();
+    private final LongAdder dealerWaitNanos = new LongAdder();
+    private final LongAdder optimisticReads = new LongAdder();
+    private final LongAdder optimisticFailures = new LongAdder();
+
+    /**
+     * Records a lock acquisition.
+     *
+     * @param dealer    - true iff the dealer acquired the lock.
+     * @param waitNanos - how long the acquiring thread was blocked (0 if the lock was free).
+     */
+    void acquired(boolean dealer, long waitNanos) {
+        (dealer ? dealerAcquires : playerAcquires).increment();
+        if (waitNanos > 0) {
+            (dealer ? dealerContended : playerContended).increment();
+            (dealer ? dealerWaitNanos : playerWaitNanos).add(waitNanos);
+        }
+    }
+
+    void optimisticRead(boolean valid) {
+        optimisticReads.increment();
+        if (!valid) optimisticFailures.increment();
+    }
+
+    long playerAcquires() {
+        return playerAcquires.sum();
+    }
+
+    long playerContended() {
+        return playerContended.sum();
+    }
+
+    long playerWaitNanos() {
+        return playerWaitNanos.sum();
+    }
+
+    long dealerAcquires() {
+        return dealerAcquires.sum();
+    }
+
+    long dealerContended() {
+        return dealerContended.sum();
+    }
+
+    long dealerWaitNanos() {
+        return dealerWaitNanos.sum();
+    }
+
+    long optimisticReads() {
+        return optimisticReads.sum();
+    }
+
+    long optimisticFailures() {
+        return optimisticFailures.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "player locks: " + playerAcquires() + " (contended " + playerContended() + ", waited "
+                + TimeUnit.NANOSECONDS.toMillis(playerWaitNanos()) + "ms), dealer locks: " + dealerAcquires()
+                + " (contended " + dealerContended() + ", waited " + TimeUnit.NANOSECONDS.toMillis(dealerWaitNanos())
+                + "ms), optimistic reads: " + optimisticReads() + " (failed " + optimisticFailures() + ")";
+    }
+}
@@ -1,6 +1,7 @@
 package bguspl.set.ex;
 
 import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
 
 import bguspl.set.Env;
 
@@ -31,7 +32,7 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    private Thread playerThread;
+    private volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
@@ -53,13 +54,16 @@ public class Player implements Runnable {
      */
     private int score;
 
+    /**
+     * The number of penalties the player got.
+     */
+    private int penalties;
+
     // Added
-    private int tokenCounter;
     private Dealer dealer;
-    private actionsQueue<Integer> inActions;
+    private actionsQueue inActions;
     private volatile Boolean toScore;
-    protected boolean needToWait;
-    private Object TCLock;
+    private volatile boolean needToWait;
 
     /**
      * The class constructor.
@@ -80,14 +84,22 @@ public class Player implements Runnable {
         this.dealer = dealer;
         terminate = false;
         score = 0;
-        tokenCounter = 0;
-        inActions = new actionsQueue<Integer>();
+        inActions = createQueue(env);
         toScore = null;
         needToWait = true;
-        TCLock = new Object();
+        env.metrics.gauge("player." + id + ".actions", inActions::size);
 
     }
 
+    private static actionsQueue createQueue(Env env) {
+        actionsQueue.Policy policy = actionsQueue.Policy.parse(env.config.actionQueuePolicy);
+        if (policy == null){
+            env.logger.severe("unknown action queue policy " + env.config.actionQueuePolicy + ", using block.");
+            policy = actionsQueue.Policy.BLOCK;
+        }
+        return new actionsQueue(env.config.actionQueueCapacity, policy);
+    }
+
     /**
      * The main player thread of each player starts here (main loop for the player thread).
      */
@@ -104,25 +116,20 @@ public class Player implements Runnable {
             if (table.getCanPlaceToken())
                 inActions.clearQueue();
 
-            Integer slot = inActions.take();
+            int slot = inActions.take();
             
             // check if input is relevant at the moment
-            if (slot != null && table.getCard(slot) != null && (tokenCounter != env.config.featureSize || table.getToken(id, slot))){
+            if (slot != actionsQueue.NO_ACTION && table.cardAt(slot) != Table.EMPTY && (table.countTokens(id) != env.config.featureSize || table.getToken(id, slot))){
 
                 // place or remove token
-                table.rw.playerLock();
+                table.rw.playerLock(slot);
                 boolean wasRemoved = table.removeToken(id, slot);
-                table.rw.playerUnlock();
+                table.rw.playerUnlock(slot);
 
-                if (wasRemoved){
-                    synchronized (TCLock) {tokenCounter--;}
-                }
-                else {
-                    if (table.ourPlaceToken(id, slot))
-                        synchronized (TCLock) {tokenCounter++;}
-                }
+                if (!wasRemoved)
+                    table.ourPlaceToken(id, slot);
 
-                if (tokenCounter == env.config.featureSize){
+                if (table.countTokens(id) == env.config.featureSize){
 
                     // extract the set and create triple for the dealer
                     int[][] set = table.returnSet(id);
@@ -133,14 +140,9 @@ public class Player implements Runnable {
                         dealer.pushToTestSet(triple);
 
                         // wait until dealer responds
-                        synchronized(dealer.locks[id]){
-                            while (needToWait && !terminate){
-                                try {
-                                    dealer.locks[id].wait();
-                                } catch (InterruptedException e) {}
-                            }
-                            needToWait = true;
-                        }
+                        while (needToWait && !terminate)
+                            LockSupport.park(this);
+                        needToWait = true;
 
                         // point or penalty and clear queue
                         // if set irrelevant do nothing
@@ -165,12 +167,12 @@ public class Player implements Runnable {
      */
     private void createArtificialIntelligence() {
         // note: this is a very, very smart AI (!)
-        aiThread = new Thread(() -> {
+        aiThread = Threads.newThread(env, () -> {
             env.logger.info("thread " + Thread.currentThread().getName() + " starting.");
+            Random random = new Random();
             while (!terminate) {
 
-                Random random = new Random();
-                int slot = random.nextInt(12);
+                int slot = random.nextInt(env.config.tableSize);
                 inActions.put(slot);
 
             }
@@ -207,46 +209,50 @@ public class Player implements Runnable {
     public void point() { 
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, ++score);
+        env.metrics.counter("players.points").increment();
 
-        long endTime = System.currentTimeMillis() + env.config.pointFreezeMillis;
-
-        while(endTime > System.currentTimeMillis()){
-            env.ui.setFreeze(id, endTime - System.currentTimeMillis() + 1000);
-            try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {}
-        }
-        env.ui.setFreeze(id, 0);
+        freeze(env.config.pointFreezeMillis);
     }
 
     /**
      * Penalize a player and perform other related actions.
      */
     public void penalty() {
+        penalties++;
+        env.metrics.counter("players.penalties").increment();
+
+        freeze(env.config.penaltyFreezeMillis);
+    }
 
-        long endTime = System.currentTimeMillis() + env.config.penaltyFreezeMillis;
-        
-        while(endTime > System.currentTimeMillis()){
-            env.ui.setFreeze(id, endTime - System.currentTimeMillis() + 1000);
+    // block until the freeze ends, the ui countdown is updated by the freeze timer meanwhile
+    private void freeze(long millis) {
+        FreezeTimer.Freeze freeze = FreezeTimer.start(env, id, millis);
+        while (!terminate){
             try {
-                Thread.sleep(10);
-            } catch (InterruptedException e) {}
+                freeze.await();
+                return;
+            } catch (InterruptedException ignored) {}
         }
-        
-        env.ui.setFreeze(id, 0);
     }
 
     public int score() {
         return score;
     }
+
+    public int penalties() {
+        return penalties;
+    }
     
     //Added
     public void toScore(Boolean toscore) {
         toScore = toscore;
     }
 
-    public void removeToken(int slot){
-        if (table.removeToken(id, slot))
-            synchronized (TCLock) {tokenCounter--;}
+    /**
+     * Called by the dealer when it is done checking the player's set.
+     */
+    public void release() {
+        needToWait = false;
+        LockSupport.unpark(playerThread);
     }
 }
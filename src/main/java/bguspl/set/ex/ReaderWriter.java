@@ -1,21 +1,25 @@
 package bguspl.set.ex;
 
-public class ReaderWriter {
+public class ReaderWriter implements TableLock {
     private boolean activeDealer;
     private int activePlayers;
+    private final LockStats stats;
 
     public ReaderWriter(){
         activePlayers = 0;
         activeDealer = false;
+        stats = new LockStats();
     }
 
     public synchronized void playerLock(){
+        long start = activeDealer ? System.nanoTime() : 0;
         try{
             while(activeDealer){
                 this.wait();
             }
         } catch (InterruptedException ignored){}
         activePlayers++;
+        stats.acquired(false, start == 0 ? 0 : Math.max(System.nanoTime() - start, 1));
     }
 
     public synchronized void playerUnlock(){
@@ -25,15 +29,30 @@ public class ReaderWriter {
 
     public synchronized void dealerLock(){
         activeDealer = true;
+        long start = activePlayers > 0 ? System.nanoTime() : 0;
         try{
             while(activePlayers > 0){
                 this.wait();
             }
         } catch (InterruptedException e){}
+        stats.acquired(true, start == 0 ? 0 : Math.max(System.nanoTime() - start, 1));
     }
 
     public synchronized void dealerUnlock(){
         activeDealer = false;
         notifyAll();
     }
+
+    // optimistic reads are not supported, readers always lock
+    public long tryOptimisticRead(){
+        return 0;
+    }
+
+    public boolean validate(long stamp){
+        return false;
+    }
+
+    public LockStats stats(){
+        return stats;
+    }
 }
@@ -0,0 +1,149 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The legal sets among the cards currently on the table, kept up to date as single slots change.
+ * Each set is stored as the sorted array of its slots and is listed under every one of its slots, so a changed slot
+ * only touches the sets it takes part in.
+ *
+ * @inv size == the number of distinct sets listed in bySlot
+ */
+class SetIndex {
+
+    private final Env env;
+
+    /**
+     * The sets each slot takes part in.
+     */
+    private final List<int[]>[] bySlot;
+
+    /**
+     * The number of sets on the table.
+     */
+    private int size;
+
+    /**
+     * Scratch buffers for the cards of a candidate set and the slots of the other cards chosen so far.
+     */
+    private final int[] cards;
+    private final int[] chosen;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    SetIndex(Env env) {
+        this.env = env;
+        bySlot = new List[env.config.tableSize];
+        for (int i = 0; i < bySlot.length; i++)
+            bySlot[i] = new ArrayList<>();
+        cards = new int[Math.max(env.config.featureSize - 1, 1)];
+        chosen = new int[Math.max(env.config.featureSize - 1, 0)];
+    }
+
+    /**
+     * Adds all the sets the card in a slot completes with the other cards on the table.
+     *
+     * @param slot       - the slot a card was just placed in.
+     * @param slotToCard - the card in each slot of the table (Table.EMPTY if none).
+     * @param cardToSlot - the slot of each card on the table (Table.EMPTY if none).
+     *
+     * @pre - slot is not part of any set in the index.
+     */
+    void add(int slot, int[] slotToCard, int[] cardToSlot) {
+        add(slot, slotToCard, cardToSlot, slotToCard.length);
+    }
+
+    /**
+     * Rebuilds the index from scratch. Each slot is added against the slots before it only, so every set is found once,
+     * from its last slot.
+     */
+    void rebuild(int[] slotToCard, int[] cardToSlot) {
+        for (List<int[]> sets : bySlot)
+            sets.clear();
+        size = 0;
+        for (int slot = 0; slot < slotToCard.length; slot++)
+            add(slot, slotToCard, cardToSlot, slot);
+    }
+
+    private void add(int slot, int[] slotToCard, int[] cardToSlot, int limit) {
+        if (slotToCard[slot] != Table.EMPTY && env.config.featureSize >= 2)
+            collect(slot, slotToCard, cardToSlot, limit, 0, 0);
+    }
+
+    /**
+     * Chooses the other cards of the candidate sets in ascending slot order. With featureSize >= 3 the last card is not
+     * chosen but computed from the others, and it must lie in a later slot than them so every set is found once.
+     */
+    private void collect(int slot, int[] slotToCard, int[] cardToSlot, int limit, int depth, int from) {
+        int others = env.config.featureSize - 1;
+        if (depth == others - 1 && others >= 2) {
+            cards[0] = slotToCard[slot];
+            for (int i = 0; i < depth; i++)
+                cards[i + 1] = slotToCard[chosen[i]];
+            int card = env.util.completeSet(cards);
+            int last = card < 0 ? Table.EMPTY : cardToSlot[card];
+            if (last != Table.EMPTY && last != slot && last < limit && (depth == 0 || last > chosen[depth - 1])) {
+                chosen[depth] = last;
+                put(slot);
+            }
+            return;
+        }
+        if (depth == others) { // featureSize = 2: any two cards form a set
+            put(slot);
+            return;
+        }
+
+        for (int other = from; other < limit; other++)
+            if (other != slot && slotToCard[other] != Table.EMPTY) {
+                chosen[depth] = other;
+                collect(slot, slotToCard, cardToSlot, limit, depth + 1, other + 1);
+            }
+    }
+
+    private void put(int slot) {
+        int[] set = new int[chosen.length + 1];
+        System.arraycopy(chosen, 0, set, 0, chosen.length);
+        set[chosen.length] = slot;
+        Arrays.sort(set);
+        for (int s : set)
+            bySlot[s].add(set);
+        size++;
+    }
+
+    /**
+     * Removes all the sets a slot takes part in.
+     *
+     * @param slot - the slot a card is about to be removed from.
+     */
+    void remove(int slot) {
+        for (int[] set : bySlot[slot]) {
+            for (int s : set)
+                if (s != slot)
+                    bySlot[s].remove(set);
+            size--;
+        }
+        bySlot[slot].clear();
+    }
+
+    /**
+     * @return - the number of legal sets on the table.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return - all legal sets on the table, each one as the sorted array of its slots.
+     */
+    List<int[]> sets() {
+        List<int[]> sets = new ArrayList<>(size);
+        for (int slot = 0; slot < bySlot.length; slot++)
+            for (int[] set : bySlot[slot])
+                if (set[0] == slot)
+                    sets.add(set);
+        return sets;
+    }
+}
@@ -0,0 +1,78 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A table lock built on a StampedLock. Players first try an optimistic read, which takes no lock and only fails if the
+ * dealer mutated the table meanwhile; then they fall back to a shared read lock. The dealer takes the exclusive write
+ * lock.
+ *
+ * A StampedLock alone lets new readers barge past a waiting writer, so a steady stream of players could starve the
+ * dealer. Here the dealer holds a fair gate while it waits for the write lock, and players that must lock pass the
+ * gate first: once the dealer waits, new readers queue behind it (in arrival order), and it gets the lock as soon as
+ * the readers already inside leave. Optimistic reads do not hold anything, so they never delay the dealer and skip
+ * the gate.
+ */
+class StampedTableLock implements TableLock {
+
+    private final StampedLock lock = new StampedLock();
+    private final ReentrantLock writerGate = new ReentrantLock(true); // held by the dealer while it waits
+    private final LockStats stats = new LockStats();
+
+    @Override
+    public void playerLock() {
+        if (!writerGate.isLocked() && lock.tryReadLock() != 0) {
+            stats.acquired(false, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        writerGate.lock(); // wait behind a waiting dealer
+        writerGate.unlock();
+        lock.readLock();
+        stats.acquired(false, Math.max(System.nanoTime() - start, 1));
+    }
+
+    @Override
+    public void playerUnlock() {
+        lock.tryUnlockRead();
+    }
+
+    @Override
+    public void dealerLock() {
+        if (lock.tryWriteLock() != 0) {
+            stats.acquired(true, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        writerGate.lock();
+        try {
+            lock.writeLock();
+        } finally {
+            writerGate.unlock();
+        }
+        stats.acquired(true, Math.max(System.nanoTime() - start, 1));
+    }
+
+    @Override
+    public void dealerUnlock() {
+        lock.tryUnlockWrite();
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+        return lock.tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        boolean valid = stamp != 0 && lock.validate(stamp);
+        stats.optimisticRead(valid);
+        return valid;
+    }
+
+    @Override
+    public LockStats stats() {
+        return stats;
+    }
+}
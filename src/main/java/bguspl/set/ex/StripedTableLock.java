@@ -0,0 +1,136 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A table lock with a StampedLock per stripe of slots (slot % stripes), so token traffic on some slots does not wait
+ * for the dealer refilling others. Multi-slot and whole-table operations acquire their stripes in ascending order.
+ * Optimistic reads are per slot only: a whole-table optimistic read is not supported and falls back to locking.
+ */
+class StripedTableLock implements TableLock {
+
+    private final StampedLock[] stripes;
+    private final LockStats stats = new LockStats();
+
+    StripedTableLock(int stripes) {
+        this.stripes = new StampedLock[stripes];
+        for (int i = 0; i < stripes; i++)
+            this.stripes[i] = new StampedLock();
+    }
+
+    private StampedLock stripe(int slot) {
+        return stripes[slot % stripes.length];
+    }
+
+    private static boolean touches(int[] slots, int stripe, int count) {
+        for (int slot : slots)
+            if (slot % count == stripe)
+                return true;
+        return false;
+    }
+
+    private void readLock(StampedLock lock) {
+        if (lock.tryReadLock() != 0) {
+            stats.acquired(false, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        lock.readLock();
+        stats.acquired(false, Math.max(System.nanoTime() - start, 1));
+    }
+
+    private void writeLock(StampedLock lock) {
+        if (lock.tryWriteLock() != 0) {
+            stats.acquired(true, 0);
+            return;
+        }
+        long start = System.nanoTime();
+        lock.writeLock();
+        stats.acquired(true, Math.max(System.nanoTime() - start, 1));
+    }
+
+    @Override
+    public void playerLock() {
+        for (StampedLock lock : stripes)
+            readLock(lock);
+    }
+
+    @Override
+    public void playerUnlock() {
+        for (int i = stripes.length - 1; i >= 0; i--)
+            stripes[i].tryUnlockRead();
+    }
+
+    @Override
+    public void dealerLock() {
+        for (StampedLock lock : stripes)
+            writeLock(lock);
+    }
+
+    @Override
+    public void dealerUnlock() {
+        for (int i = stripes.length - 1; i >= 0; i--)
+            stripes[i].tryUnlockWrite();
+    }
+
+    @Override
+    public long tryOptimisticRead() {
+        return 0;
+    }
+
+    @Override
+    public boolean validate(long stamp) {
+        return false;
+    }
+
+    @Override
+    public void playerLock(int slot) {
+        readLock(stripe(slot));
+    }
+
+    @Override
+    public void playerUnlock(int slot) {
+        stripe(slot).tryUnlockRead();
+    }
+
+    @Override
+    public void dealerLock(int slot) {
+        writeLock(stripe(slot));
+    }
+
+    @Override
+    public void dealerUnlock(int slot) {
+        stripe(slot).tryUnlockWrite();
+    }
+
+    @Override
+    public void dealerLock(int[] slots) {
+        for (int i = 0; i < stripes.length; i++)
+            if (touches(slots, i, stripes.length))
+                writeLock(stripes[i]);
+    }
+
+    @Override
+    public void dealerUnlock(int[] slots) {
+        for (int i = stripes.length - 1; i >= 0; i--)
+            if (touches(slots, i, stripes.length))
+                stripes[i].tryUnlockWrite();
+    }
+
+    @Override
+    public long tryOptimisticRead(int slot) {
+        return stripe(slot).tryOptimisticRead();
+    }
+
+    @Override
+    public boolean validate(int slot, long stamp) {
+        boolean valid = stamp != 0 && stripe(slot).validate(stamp);
+        stats.optimisticRead(valid);
+        return valid;
+    }
+
+    @Override
+    public LockStats stats() {
+        return stats;
+    }
+}
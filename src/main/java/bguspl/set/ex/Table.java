@@ -3,9 +3,10 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.Arrays;
-import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class contains the data that is visible to the player.
@@ -20,46 +21,85 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The value of an empty entry in slotToCard and cardToSlot.
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    public static final int EMPTY = -1;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a slot and the card placed in it (EMPTY if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final int[] slotToCard; // card per slot (if any)
+
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    protected final int[] cardToSlot; // slot per card (if any)
+
+    /**
+     * The legal sets among the cards on the table.
+     */
+    private final SetIndex setIndex;
+
+    /**
+     * The tokens of each player, as a bitmask of slots: the token of player p on slot s is bit s % 64 of
+     * tokens[p * slotWords + s / 64].
+     */
+    private final AtomicLongArray tokens;
+    private final int slotWords;
+
+    /**
+     * The players holding a token on each slot, as a bitmask of players: player p on slot s is bit p % 64 of
+     * slotTokens[s * playerWords + p / 64].
+     */
+    private final AtomicLongArray slotTokens;
+    private final int playerWords;
 
     // Added
-    private final boolean[][] tokens;
-    protected ReaderWriter rw;
+    protected final TableLock rw;
     private boolean canPlaceTokens;
-    private Object CPTlock;
+    private final ReentrantLock CPTlock;
+    private final Condition canPlaceTokensChanged;
+    private final LongAdder tokensPlaced;
 
     /**
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (EMPTY if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (EMPTY if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, int[] cardToSlot) {
 
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
+        setIndex = new SetIndex(env);
+        setIndex.rebuild(slotToCard, cardToSlot);
+
+        slotWords = (env.config.tableSize + 63) >>> 6;
+        playerWords = (env.config.players + 63) >>> 6;
+        tokens = new AtomicLongArray(env.config.players * slotWords);
+        slotTokens = new AtomicLongArray(env.config.tableSize * playerWords);
 
         // Added
-        tokens = new boolean[env.config.players][env.config.tableSize];
-        for (int i = 0; i < tokens.length; i++)
-            for (int j = 0; j < tokens[i].length; j++)
-                tokens[i][j] = false;
-        
-        rw = new ReaderWriter();
+        rw = createLock(env);
         canPlaceTokens = false;
-        CPTlock = new Object();
+        CPTlock = new ReentrantLock();
+        canPlaceTokensChanged = CPTlock.newCondition();
+        tokensPlaced = env.metrics.counter("tokens.placed");
     }
     
 
+    private static TableLock createLock(Env env) {
+        if (env.config.tableLock.equalsIgnoreCase("ReaderWriter"))
+            return new ReaderWriter();
+        if (env.config.tableLock.equalsIgnoreCase("Striped"))
+            return new StripedTableLock(env.config.tableLockStripes);
+        if (!env.config.tableLock.equalsIgnoreCase("Stamped"))
+            env.logger.severe("unknown table lock " + env.config.tableLock + ", using Stamped.");
+        return new StampedTableLock();
+    }
+
     /**
      * Constructor for actual usage.
      *
@@ -67,7 +107,13 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptyArray(env.config.tableSize), emptyArray(env.config.deckSize));
+    }
+
+    private static int[] emptyArray(int length) {
+        int[] array = new int[length];
+        Arrays.fill(array, EMPTY);
+        return array;
     }
 
     /**
@@ -78,12 +124,11 @@ public class Table {
         // Added
         rw.dealerLock();
 
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        setIndex.sets().forEach(slots -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
+            int[] set = Arrays.stream(slots).map(slot -> slotToCard[slot]).sorted().toArray();
             int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
+            System.out.println(sb.append("slots: ").append(Arrays.toString(slots)).append(" features: ").append(Arrays.deepToString(features)));
         });
 
         // Added
@@ -97,8 +142,8 @@ public class Table {
      */
     public int countCards() {
         int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
+        for (int card : slotToCard)
+            if (card != EMPTY)
                 ++cards;
         return cards;
     }
@@ -111,36 +156,64 @@ public class Table {
      * @post - the card placed is on the table, in the assigned slot.
      */
     public void placeCard(int card, int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay();
 
-        rw.dealerLock();
+        rw.dealerLock(slot);
+        int previous = slotToCard[slot];
+        if (previous != EMPTY) { // keep the mappings and the sets consistent if the slot was not emptied first
+            setIndex.remove(slot);
+            cardToSlot[previous] = EMPTY;
+        }
         cardToSlot[card] = slot;
         slotToCard[slot] = card;
-        rw.dealerUnlock();
+        setIndex.add(slot, slotToCard, cardToSlot);
+        rw.dealerUnlock(slot);
 
         env.ui.placeCard(card, slot);
     }
 
     /**
-     * Removes a card from a grid slot on the table.
+     * Removes a card, and all the tokens on it, from a grid slot on the table.
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
-        try {
-            Thread.sleep(env.config.tableDelayMillis);
-        } catch (InterruptedException ignored) {}
+        delay();
 
-        rw.dealerLock();
-        Integer card = slotToCard[slot];
-        if(card != null){
-            cardToSlot[card] = null;
-            slotToCard[slot] = null;
+        rw.dealerLock(slot);
+        removeLockedCard(slot);
+        rw.dealerUnlock(slot);
+
+    }
+
+    /**
+     * Removes the cards of a set, and all the tokens on them, from the table, locking only their slots.
+     * @param slots - the slots from which to remove the cards.
+     */
+    public void removeCards(int[] slots) {
+        for (int i = 0; i < slots.length; i++)
+            delay();
+
+        rw.dealerLock(slots);
+        for (int slot : slots)
+            removeLockedCard(slot);
+        rw.dealerUnlock(slots);
+    }
+
+    private void removeLockedCard(int slot) {
+        int card = slotToCard[slot];
+        if(card != EMPTY){
+            setIndex.remove(slot);
+            cardToSlot[card] = EMPTY;
+            slotToCard[slot] = EMPTY;
             env.ui.removeCard(slot);
         }
-        rw.dealerUnlock();
+        removeTokens(slot);
+    }
 
+    private void delay() {
+        try {
+            env.clock.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
     }
 
     /**
@@ -149,9 +222,12 @@ public class Table {
      * @param slot   - the slot on which to place the token.
      */
     public void placeToken(int player, int slot) {
-        
-        tokens[player][slot] = true;
-        env.ui.placeToken(player, slot);
+
+        if (setBit(tokens, player * slotWords + (slot >>> 6), 1L << slot)) {
+            setBit(slotTokens, slot * playerWords + (player >>> 6), 1L << player);
+            tokensPlaced.increment();
+            env.ui.placeToken(player, slot);
+        }
     }
 
     /**
@@ -160,110 +236,206 @@ public class Table {
      * @param slot   - the slot from which to remove the token.
      * @return       - true iff a token was successfully removed.
      */
-    public boolean removeToken(int player, int slot) { // Needs to be synched from the outside
-        
-        boolean output = tokens[player][slot];
+    public boolean removeToken(int player, int slot) { // Must not race with the dealer clearing the slot
+
+        boolean output = clearBit(tokens, player * slotWords + (slot >>> 6), 1L << slot);
         if (output){
-            tokens[player][slot] = false;
+            clearBit(slotTokens, slot * playerWords + (player >>> 6), 1L << player);
             env.ui.removeToken(player, slot);
         }
         return output;
     }
 
+    /**
+     * Removes the tokens of all players from a grid slot, clearing the slot's bit in each token holder's mask.
+     * @param slot - the slot from which to remove the tokens.
+     */
+    public void removeTokens(int slot) { // Must be called with the slot locked by the dealer
+
+        boolean removed = false;
+        for (int word = 0; word < playerWords; word++){
+            long holders = slotTokens.getAndSet(slot * playerWords + word, 0);
+            removed |= holders != 0;
+            for (; holders != 0; holders &= holders - 1){
+                int player = (word << 6) + Long.numberOfTrailingZeros(holders);
+                clearBit(tokens, player * slotWords + (slot >>> 6), 1L << slot);
+            }
+        }
+        if (removed)
+            env.ui.removeTokens(slot);
+    }
+
+    /**
+     * @param player - the player id.
+     * @return       - the number of tokens the player has on the table.
+     */
+    public int countTokens(int player){
+        int count = 0;
+        for (int word = 0; word < slotWords; word++)
+            count += Long.bitCount(tokens.get(player * slotWords + word));
+        return count;
+    }
+
+    // set the bits of mask in the word, return true iff any of them was clear
+    private static boolean setBit(AtomicLongArray words, int index, long mask){
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) == mask) return false;
+        } while (!words.compareAndSet(index, word, word | mask));
+        return true;
+    }
+
+    // clear the bits of mask in the word, return true iff any of them was set
+    private static boolean clearBit(AtomicLongArray words, int index, long mask){
+        long word;
+        do {
+            word = words.get(index);
+            if ((word & mask) == 0) return false;
+        } while (!words.compareAndSet(index, word, word & ~mask));
+        return true;
+    }
+
     //this method returns a 2-D array which the first array is the cards, and the second one is the slots each card
     //is the corresponding slot, for a specific player.
     public int[][] returnSet(int player){
-        int j = 0;
-        int[][] output = new int[2][env.config.featureSize];
 
-        rw.playerLock();
-        for (int i = 0; i < tokens[player].length && output != null; i++){
-            if (tokens[player][i]){
-                if (slotToCard[i] == null)
-                    output = null;
-                else{
-                    output[0][j] = slotToCard[i];
-                    output[1][j] = i;
-                    j++;
-                }
-            }
+        // try without locking first (if the lock supports it), and read again under the lock if the dealer changed
+        // the table meanwhile
+        long stamp = rw.tryOptimisticRead();
+        if (stamp != 0) {
+            int[][] output = readSet(player);
+            if (rw.validate(stamp))
+                return output;
         }
+
+        rw.playerLock();
+        int[][] output = readSet(player);
         rw.playerUnlock();
 
         return output;
     }
 
+    private int[][] readSet(int player){
+        int j = 0;
+        int[][] output = new int[2][env.config.featureSize];
+        for (int word = 0; word < slotWords; word++){
+            for (long bits = tokens.get(player * slotWords + word); bits != 0; bits &= bits - 1){
+                int slot = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int card = slotToCard[slot];
+                if (card == EMPTY || j == output[0].length)
+                    return null;
+                output[0][j] = card;
+                output[1][j] = slot;
+                j++;
+            }
+        }
+        return output;
+    }
+
     public boolean isSetRelevant(int[] cards, int[] slots){
         boolean output = true;
-        rw.dealerLock();
+        rw.dealerLock(slots);
         for (int i = 0; i < slots.length && output; i++){
-            if (slotToCard[slots[i]] == null)
-                output = false;
-            else
-                output = (cards[i] == slotToCard[slots[i]]);
+            int card = slotToCard[slots[i]];
+            output = card != EMPTY && cards[i] == card;
         }
-        rw.dealerUnlock();
+        rw.dealerUnlock(slots);
         return output;
     }
 
     public void addToDeck(Dealer dealer){
         rw.dealerLock();
         for (int i = 0; i < slotToCard.length; i++){
-            if (slotToCard[i] != null)
+            if (slotToCard[i] != EMPTY)
                 dealer.addCard(slotToCard[i]);
         }
         rw.dealerUnlock();
     }
 
-    public Integer getCard(int slot){
-        rw.playerLock();
-        Integer output = slotToCard[slot];
-        rw.playerUnlock();
+    /**
+     * @param slot - the slot.
+     * @return     - the card in the slot, or EMPTY if there is none.
+     */
+    public int cardAt(int slot){
+        long stamp = rw.tryOptimisticRead(slot);
+        if (stamp != 0) {
+            int output = slotToCard[slot];
+            if (rw.validate(slot, stamp))
+                return output;
+        }
+
+        rw.playerLock(slot);
+        int output = slotToCard[slot];
+        rw.playerUnlock(slot);
         return output;
     }
 
-    public boolean getToken(int id, int slot){
+    /**
+     * @param card - the card id.
+     * @return     - the slot the card is in, or EMPTY if it is not on the table.
+     */
+    public int slotOf(int card){
         rw.playerLock();
-        boolean output =  tokens[id][slot];
+        int output = cardToSlot[card];
         rw.playerUnlock();
         return output;
     }
 
+    /**
+     * Boxed variant of cardAt, kept for callers that expect null for an empty slot.
+     * @param slot - the slot.
+     * @return     - the card in the slot, or null if there is none.
+     */
+    public Integer getCard(int slot){
+        int card = cardAt(slot);
+        return card == EMPTY ? null : card;
+    }
+
+    public boolean getToken(int id, int slot){
+        return (tokens.get(id * slotWords + (slot >>> 6)) & (1L << slot)) != 0;
+    }
+
     public boolean ourPlaceToken(int player, int slot){
-        rw.playerLock();
-        boolean output = slotToCard[slot] != null;
+        rw.playerLock(slot);
+        boolean output = slotToCard[slot] != EMPTY;
         if (output)
             placeToken(player, slot);
-        rw.playerUnlock();
+        rw.playerUnlock(slot);
         return output;
     }
 
     public boolean getCanPlaceToken(){
         
         boolean output = false;
-        synchronized (CPTlock){
-            try {
-                while (!canPlaceTokens){
-                    output = true;
-                    CPTlock.wait();
-                }
-            } catch (InterruptedException e) {}
+        CPTlock.lock();
+        try {
+            while (!canPlaceTokens){
+                output = true;
+                canPlaceTokensChanged.await();
+            }
+        } catch (InterruptedException e) {
+        } finally {
+            CPTlock.unlock();
         }
         return output;
     }
 
     public void setCanPlaceToken(boolean newVal){
 
-        synchronized(CPTlock){
+        CPTlock.lock();
+        try {
             canPlaceTokens = newVal;
-            CPTlock.notifyAll();
+            canPlaceTokensChanged.signalAll();
+        } finally {
+            CPTlock.unlock();
         }
     }
 
     public boolean doSetExists(){
         rw.dealerLock();
-        List<Integer> cards = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
+        boolean output = setIndex.size() > 0;
         rw.dealerUnlock();
-        return !env.util.findSets(cards, Integer.MAX_VALUE).isEmpty();
+        return output;
     }
 }
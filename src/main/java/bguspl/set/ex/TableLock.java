@@ -0,0 +1,77 @@
+package bguspl.set.ex;
+
+/**
+ * The locking strategy guarding the table data: players are the readers and the dealer is the (only) writer.
+ * Strategies that support optimistic reads let players read without locking at all, as long as no dealer mutation
+ * happened in between. Operations that touch known slots say so, which lets striped strategies lock only those slots;
+ * for the other strategies they lock the whole table.
+ */
+interface TableLock {
+
+    void playerLock();
+
+    void playerUnlock();
+
+    void dealerLock();
+
+    void dealerUnlock();
+
+    /**
+     * Starts an optimistic read.
+     *
+     * @return - a stamp to validate after reading, or 0 if optimistic reads are not supported.
+     */
+    long tryOptimisticRead();
+
+    /**
+     * Checks that no dealer mutation happened since the stamp was obtained.
+     *
+     * @param stamp - a stamp returned by tryOptimisticRead.
+     * @return - true iff the values read since tryOptimisticRead are consistent (always false for a 0 stamp).
+     */
+    boolean validate(long stamp);
+
+    default void playerLock(int slot) {
+        playerLock();
+    }
+
+    default void playerUnlock(int slot) {
+        playerUnlock();
+    }
+
+    default void dealerLock(int slot) {
+        dealerLock();
+    }
+
+    default void dealerUnlock(int slot) {
+        dealerUnlock();
+    }
+
+    /**
+     * Locks several slots for the dealer at once. Striped strategies acquire the stripes in a fixed order, so this never
+     * deadlocks with other multi-slot or whole-table locking.
+     */
+    default void dealerLock(int[] slots) {
+        dealerLock();
+    }
+
+    default void dealerUnlock(int[] slots) {
+        dealerUnlock();
+    }
+
+    /**
+     * Starts an optimistic read of a single slot (see tryOptimisticRead).
+     */
+    default long tryOptimisticRead(int slot) {
+        return tryOptimisticRead();
+    }
+
+    default boolean validate(int slot, long stamp) {
+        return validate(stamp);
+    }
+
+    /**
+     * @return - the contention counters of this lock.
+     */
+    LockStats stats();
+}
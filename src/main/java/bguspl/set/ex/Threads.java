@@ -0,0 +1,76 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.lang.reflect.Method;
+
+/**
+ * Creates the threads of the players and of the AI input generators according to the configured execution mode:
+ * "platform" threads (one OS thread each) or "virtual" threads (cheap threads scheduled by the JVM, Java 21+).
+ * Virtual threads are created by reflection so the game still builds and runs on older JVMs, where it falls back to
+ * platform threads.
+ */
+final class Threads {
+
+    // Thread.ofVirtual(), Thread.Builder.name(String) and Thread.Builder.unstarted(Runnable), or null if unavailable
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method UNSTARTED;
+
+    static {
+        Method ofVirtual = null, name = null, unstarted = null;
+        try {
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class);
+            unstarted = builder.getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+    }
+
+    private static volatile boolean warned;
+
+    private Threads() {}
+
+    /**
+     * @return - true iff this JVM supports virtual threads.
+     */
+    static boolean virtualSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Creates an unstarted thread in the configured execution mode.
+     *
+     * @param env  - the game environment objects.
+     * @param task - the code the thread runs.
+     * @param name - the name of the thread.
+     */
+    static Thread newThread(Env env, Runnable task, String name) {
+        String mode = env.config.executionMode;
+        if (mode.equalsIgnoreCase("virtual")) {
+            if (virtualSupported()) {
+                try {
+                    Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), name);
+                    return (Thread) UNSTARTED.invoke(builder, task);
+                } catch (ReflectiveOperationException e) {
+                    warn(env, "cannot create a virtual thread (" + e + "), using platform threads.");
+                }
+            } else
+                warn(env, "virtual threads need Java 21 or later, using platform threads.");
+        } else if (!mode.equalsIgnoreCase("platform"))
+            warn(env, "unknown execution mode " + mode + ", using platform threads.");
+        return new Thread(task, name);
+    }
+
+    private static void warn(Env env, String message) {
+        if (!warned) {
+            warned = true;
+            env.logger.severe(message);
+        }
+    }
+}
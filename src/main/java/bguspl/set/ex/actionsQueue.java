@@ -1,49 +1,139 @@
 package bguspl.set.ex;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
-class actionsQueue<E> {
+/**
+ * A bounded ring buffer of key presses (slots) between one producer (the keyboard or the AI thread) and one consumer
+ * (the player thread). head and tail count the actions taken and put so far; the action at index i is kept in
+ * slots[i % capacity]. Waiting threads park, and are unparked by the other side when it makes progress.
+ *
+ * @inv 0 <= tail - head <= capacity
+ */
+class actionsQueue {
 
-    private Vector<E> actions;
-    private final int MAX;
+    /**
+     * What put does when the queue is full.
+     */
+    enum Policy {
+        BLOCK, DROP_NEWEST, DROP_OLDEST;
 
-    public actionsQueue() {
-        MAX = 3;
-        actions = new Vector<>();
+        /**
+         * @return - the policy named by a config value such as "drop-oldest", or null if there is none.
+         */
+        static Policy parse(String name) {
+            for (Policy policy : values())
+                if (policy.name().replace('_', '-').equalsIgnoreCase(name))
+                    return policy;
+            return null;
+        }
     }
 
-    public synchronized void put(E slot){
-        try{
-            while(actions.size() >= MAX){
-                this.wait();
-            }
-        } catch (InterruptedException ignored){}
+    /**
+     * Returned by take if the consumer was interrupted before an action arrived.
+     */
+    public static final int NO_ACTION = -1;
 
-        if (actions.size() < MAX){
-            actions.add(slot);
-            this.notifyAll();
-        }
+    private final int[] slots;
+    private final Policy policy;
+
+    // the index of the next action to take (advanced by the producer too when it drops the oldest action)
+    private final AtomicLong head;
+    // the index of the next action to put (written by the producer only)
+    private volatile long tail;
+
+    // the threads parked waiting for an action or for room (null if none)
+    private volatile Thread waitingConsumer;
+    private volatile Thread waitingProducer;
+
+    public actionsQueue(int capacity, Policy policy) {
+        slots = new int[capacity];
+        this.policy = policy;
+        head = new AtomicLong();
     }
 
-    public synchronized E take() {
-        try{
-            while(actions.size() == 0){
-                this.wait();
+    /**
+     * Adds an action, handling a full queue according to the policy. Must only be called by the producer.
+     * @return - true iff the action was added (false if it was dropped, or the producer was interrupted while waiting).
+     */
+    public boolean put(int slot){
+        long t = tail;
+        while (t - head.get() >= slots.length){
+            if (policy == Policy.DROP_NEWEST)
+                return false;
+            if (policy == Policy.DROP_OLDEST){
+                long h = head.get();
+                if (t - h >= slots.length)
+                    head.compareAndSet(h, h + 1);
             }
-        } catch (InterruptedException ignored){}
-
-        if (actions.size() != 0){
-            E action = actions.get(0);
-            actions.remove(0);
-            this.notifyAll();
-            return action;
+            else if (!await(true))
+                return false;
         }
-        return null;
+
+        slots[(int) (t % slots.length)] = slot;
+        tail = t + 1;
+        LockSupport.unpark(waitingConsumer);
+        return true;
     }
 
-    public synchronized void clearQueue(){
-        while(actions.size() != 0){
-            actions.remove(0);
+    /**
+     * Removes the oldest action, waiting for one if the queue is empty. Must only be called by the consumer.
+     * @return - the slot of the action, or NO_ACTION if the consumer was interrupted while waiting.
+     */
+    public int take() {
+        while (true){
+            long h = head.get();
+            if (h == tail){
+                if (!await(false))
+                    return NO_ACTION;
+                continue;
+            }
+            int slot = slots[(int) (h % slots.length)];
+            if (head.compareAndSet(h, h + 1)){ // fails only if the producer dropped this action meanwhile
+                LockSupport.unpark(waitingProducer);
+                return slot;
+            }
         }
-        this.notifyAll();
     }
-}
\ No newline at end of file
+
+    /**
+     * @return - the number of actions waiting (a snapshot, it may change as soon as it is returned).
+     */
+    public int size(){
+        return (int) Math.max(tail - head.get(), 0);
+    }
+
+    /**
+     * Discards all the waiting actions. Must only be called by the consumer.
+     */
+    public void clearQueue(){
+        long h, t;
+        do {
+            h = head.get();
+            t = tail;
+        } while (h < t && !head.compareAndSet(h, t));
+        LockSupport.unpark(waitingProducer);
+    }
+
+    /**
+     * Parks the calling thread until the other side makes progress (or spuriously), after registering it and checking
+     * again that it still has to wait, so a wakeup is never missed.
+     * @return - false iff the thread was interrupted (the interrupt status is cleared, as wait() does).
+     */
+    private boolean await(boolean producer){
+        Thread self = Thread.currentThread();
+        if (producer)
+            waitingProducer = self;
+        else
+            waitingConsumer = self;
+
+        long h = head.get(), t = tail;
+        if (producer ? t - h >= slots.length : h == t)
+            LockSupport.park(this);
+
+        if (producer)
+            waitingProducer = null;
+        else
+            waitingConsumer = null;
+        return !Thread.interrupted();
+    }
+}
@@ -1,30 +1,58 @@
 package bguspl.set.ex;
-import java.util.Vector;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * The set claims waiting for the dealer: any number of players put, only the dealer takes.
+ * Claims are pushed onto a lock-free stack with a single compare-and-set, and the dealer detaches the whole stack with
+ * one getAndSet and reverses it, so it gets all the pending claims in the order they were made.
+ */
 class setsQueue {
 
-    private Vector<Triple<Integer, int[], int[]>> sets;
+    static class Node {
+        final Triple<Integer, int[], int[]> set;
+        final long claimedNanos; // System.nanoTime() when the claim was put
+        Node next;
+
+        Node(Triple<Integer, int[], int[]> set) {
+            this.set = set;
+            claimedNanos = System.nanoTime();
+        }
+    }
+
+    // the most recent claim, linked to the older ones
+    private final AtomicReference<Node> top;
 
     public setsQueue() {
-        sets = new Vector<>();
+        top = new AtomicReference<>();
     }
 
-    public synchronized void put(Triple<Integer, int[], int[]> set){
-        sets.add(set);
+    public void put(Triple<Integer, int[], int[]> set){
+        Node node = new Node(set);
+        Node current;
+        do {
+            current = top.get();
+            node.next = current;
+        } while (!top.compareAndSet(current, node));
     }
 
-    public synchronized Triple<Integer, int[], int[]> take() {
-        if (sets.size() == 0){
-            return null;
+    /**
+     * Removes all the pending claims. Must only be called by the consumer.
+     * @return - the first claim, linked to the later ones in the order they were put (null if there are none).
+     */
+    public Node drain() {
+        Node node = top.getAndSet(null);
+        Node first = null;
+        while (node != null){
+            Node next = node.next;
+            node.next = first;
+            first = node;
+            node = next;
         }
-
-        Triple<Integer, int[], int[]> set = sets.get(0);
-        sets.remove(0);
-        return set;
+        return first;
     }
 
-    public synchronized boolean isEmpty(){
-        return sets.isEmpty();
+    public boolean isEmpty(){
+        return top.get() == null;
     }
 
-}
\ No newline at end of file
+}
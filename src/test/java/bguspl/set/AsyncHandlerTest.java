@@ -0,0 +1,89 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncHandlerTest {
+
+    @Test
+    void flush_WritesEveryRecordInOrder() throws InterruptedException {
+
+        StringWriter out = new StringWriter();
+        AsyncHandler handler = new AsyncHandler(out, 1024);
+        handler.setFormatter(new SimpleFormatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + "\n";
+            }
+        });
+
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String name = "t" + t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 200; i++)
+                    handler.publish(new LogRecord(Level.INFO, name + " " + i));
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        handler.flush();
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(800, lines.length);
+        for (int t = 0; t < threads.length; t++) {
+            int next = 0;
+            for (String line : lines)
+                if (line.startsWith("t" + t + " "))
+                    assertEquals("t" + t + " " + next++, line);
+            assertEquals(200, next);
+        }
+        handler.close();
+    }
+
+    @Test
+    void publish_DropsWhenFullAndReportsLoss() throws InterruptedException {
+
+        CountDownLatch blocked = new CountDownLatch(1);
+        StringWriter out = new StringWriter();
+        Writer slow = new Writer() { // blocks the writer thread, so the buffer fills up
+            @Override
+            public void write(char[] chars, int offset, int length) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException ignored) {}
+                out.write(chars, offset, length);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+        AsyncHandler handler = new AsyncHandler(slow, 4);
+        handler.setFormatter(new SimpleFormatter());
+
+        for (int i = 0; i < 100; i++)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        blocked.countDown();
+        handler.close();
+
+        assertTrue(handler.dropped() > 0);
+        long reported = 0;
+        for (String line : out.toString().split(System.lineSeparator()))
+            if (line.endsWith("log records dropped, the log buffer was full]"))
+                reported += Long.parseLong(line.substring(1, line.indexOf(' ')));
+        assertEquals(handler.dropped(), reported);
+    }
+}
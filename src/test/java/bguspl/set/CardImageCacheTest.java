@@ -0,0 +1,89 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Image;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardImageCacheTest {
+
+    private CardImageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, new Properties());
+        cache = new CardImageCache(logger, config, CardImageCache.images(config), image -> image, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cache.shutdown();
+    }
+
+    private Image load(int card) throws InterruptedException {
+        CountDownLatch loaded = new CountDownLatch(1);
+        if (cache.get(card, loaded::countDown) == null)
+            assertTrue(loaded.await(10, TimeUnit.SECONDS));
+        return cache.get(card, null);
+    }
+
+    @Test
+    void get_DecodesInTheBackgroundThenCaches() throws InterruptedException {
+        CountDownLatch loaded = new CountDownLatch(1);
+        assertNull(cache.get(5, loaded::countDown));
+        assertTrue(loaded.await(10, TimeUnit.SECONDS));
+        assertNotNull(cache.get(5, () -> { throw new AssertionError("already cached"); }));
+    }
+
+    private static int attempts(CardImageCache.Source source) throws InterruptedException {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        AtomicInteger attempts = new AtomicInteger();
+        CardImageCache failing = new CardImageCache(logger, new Config(logger, new Properties()), card -> {
+            attempts.incrementAndGet();
+            return source.load(card);
+        }, image -> image, 2);
+        try {
+            for (int i = 0; i < 50; i++) {
+                assertNull(failing.get(7, () -> {}));
+                failing.prefetch(new int[]{7}, 1);
+                Thread.sleep(2);
+            }
+        } finally {
+            failing.shutdown();
+        }
+        return attempts.get();
+    }
+
+    @Test
+    void get_DoesNotRetryAFailedCard() throws InterruptedException {
+        assertEquals(1, attempts(card -> { throw new IOException("broken"); }));
+        assertEquals(1, attempts(card -> null));
+    }
+
+    @Test
+    void get_EvictsTheLeastRecentlyUsed() throws InterruptedException {
+        assertNotNull(load(0));
+        assertNotNull(load(1));
+        assertNotNull(load(0)); // card 1 is now the least recently used
+        assertNotNull(load(2));
+
+        assertNotNull(cache.get(0, null));
+        assertNotNull(cache.get(2, null));
+        assertNull(cache.get(1, null));
+    }
+}
@@ -0,0 +1,54 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardRendererTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        return new Config(logger, properties);
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+    }
+
+    @Test
+    void auto_DrawsOnlyDecksWithoutCardFiles() {
+        assertEquals("images", config(3, 4).cardRenderer);
+        assertEquals("drawn", config(4, 4).cardRenderer);
+        assertEquals("drawn", config(3, 5).cardRenderer);
+    }
+
+    @Test
+    void load_DrawsEveryCardDifferently() {
+        // 5 values reach the polygons, 5 features reach the badges
+        assertDrawsEveryCardDifferently(config(5, 4));
+        assertDrawsEveryCardDifferently(config(4, 5));
+    }
+
+    private static void assertDrawsEveryCardDifferently(Config config) {
+        CardRenderer renderer = new CardRenderer(config);
+        Set<Integer> pictures = new HashSet<>();
+        for (int card = 0; card < config.deckSize; card++) {
+            BufferedImage image = (BufferedImage) renderer.load(card);
+            assertEquals(config.cellWidth, image.getWidth());
+            assertEquals(config.cellHeight, image.getHeight());
+            pictures.add(Arrays.hashCode(pixels(image)));
+        }
+        assertEquals(config.deckSize, pictures.size());
+    }
+}
@@ -0,0 +1,30 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClockTest {
+
+    @Test
+    void scaled_RunsFaster() throws InterruptedException {
+
+        Clock clock = Clock.scaled(100);
+        assertEquals(10_000_000, clock.realNanos(1000));
+
+        long start = clock.millis();
+        long wallStart = System.currentTimeMillis();
+        clock.sleep(2000);
+        long wallMillis = System.currentTimeMillis() - wallStart;
+        assertTrue(clock.millis() - start >= 2000);
+        assertTrue(wallMillis < 1000);
+    }
+
+    @Test
+    void scaled_RejectsNonPositiveSpeed() {
+
+        assertThrows(IllegalArgumentException.class, () -> Clock.scaled(0));
+    }
+}
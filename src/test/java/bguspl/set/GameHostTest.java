@@ -0,0 +1,49 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameHostTest {
+
+    @Test
+    void submit_PlaysIndependentGamesConcurrently() throws InterruptedException, ExecutionException {
+
+        Properties properties = new Properties();
+        properties.put("HumanPlayers", "0");
+        properties.put("ComputerPlayers", "2");
+        properties.put("FeatureCount", "3");
+        properties.put("TurnTimeoutSeconds", "-1");
+        properties.put("PointFreezeSeconds", "0");
+        properties.put("PenaltyFreezeSeconds", "0");
+        properties.put("TableDelaySeconds", "0");
+        properties.put("LogLevel", "OFF");
+        Logger logger = Logger.getAnonymousLogger();
+        logger.setUseParentHandlers(false);
+        Config config = new Config(logger, properties);
+        logger.setLevel(Level.OFF);
+        Util util = new UtilImpl(config);
+
+        GameHost host = new GameHost(2);
+        List<Future<GameHost.Result>> results = new ArrayList<>();
+        for (int game = 0; game < 4; game++)
+            results.add(host.submit(new Env(logger, config, new UserInterfaceHeadless(), util, Clock.scaled(1000))));
+        host.close();
+
+        for (Future<GameHost.Result> result : results) {
+            assertEquals(2, result.get().scores.length);
+            assertTrue(result.get().points() > 0);
+        }
+        assertEquals(4, host.completed());
+        assertEquals(0, host.running());
+    }
+}
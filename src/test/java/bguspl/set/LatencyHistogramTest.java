@@ -0,0 +1,42 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_WithinBucketPrecision() {
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++)
+            histogram.record(value * 1000);
+
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.max());
+        assertEquals(500_500, histogram.mean(), 1e-6);
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500_000 && median <= 500_000 * 1.125, "median " + median);
+        long p99 = histogram.percentile(99);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 " + p99);
+        assertEquals(1_000_000, histogram.percentile(100));
+    }
+
+    @Test
+    void add_MergesCounts() {
+
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record(3);
+        second.record(5);
+        second.record(7);
+        first.add(second);
+
+        assertEquals(3, first.count());
+        assertEquals(7, first.max());
+        assertEquals(5, first.percentile(50));
+        assertEquals(0, new LatencyHistogram().percentile(50));
+    }
+}
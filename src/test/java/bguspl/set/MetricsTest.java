@@ -0,0 +1,53 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsTest {
+
+    @Test
+    void snapshot_ReadsCountersAndGauges() {
+
+        Metrics metrics = new Metrics();
+        metrics.counter("tokens.placed").add(3);
+        metrics.counter("tokens.placed").increment();
+        metrics.gauge("deck.cards", () -> 42);
+
+        assertEquals(4L, metrics.snapshot().get("tokens.placed"));
+        assertEquals(42L, metrics.snapshot().get("deck.cards"));
+    }
+
+    @Test
+    void publish_ExposesMBeanAndDumpsToFile(@TempDir Path dir) throws Exception {
+
+        Metrics metrics = new Metrics();
+        metrics.counter("players.points").increment();
+        Path file = dir.resolve("metrics.log");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("bguspl.set:type=Metrics,*");
+
+        metrics.publish(Logger.getAnonymousLogger(), file.toString(), 10);
+        boolean found = false;
+        for (ObjectName name : server.queryNames(pattern, null))
+            found |= server.getAttribute(name, "players.points").equals(1L);
+        assertTrue(found);
+        Thread.sleep(50);
+        metrics.close();
+
+        List<String> lines = Files.readAllLines(file);
+        assertTrue(lines.size() >= 2);
+        assertTrue(lines.get(lines.size() - 1).contains(" players.points=1 "));
+        assertTrue(server.queryNames(pattern, null).isEmpty());
+    }
+}
@@ -0,0 +1,82 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserInterfaceDispatcherTest {
+
+    /**
+     * Records the calls that reach the user interface.
+     */
+    private static class RecordingUserInterface extends UserInterfaceHeadless {
+        final List<String> calls = new ArrayList<>();
+
+        @Override
+        public void placeCard(int card, int slot) {
+            calls.add("placeCard " + card + " " + slot);
+        }
+
+        @Override
+        public void removeCard(int slot) {
+            calls.add("removeCard " + slot);
+        }
+
+        @Override
+        public void placeToken(int player, int slot) {
+            calls.add("placeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void removeToken(int player, int slot) {
+            calls.add("removeToken " + player + " " + slot);
+        }
+
+        @Override
+        public void setCountdown(long millies, boolean warn) {
+            calls.add("setCountdown " + millies + " " + warn);
+        }
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            calls.add("setFreeze " + player + " " + millies);
+        }
+    }
+
+    @Test
+    void applyFrame_ShowsOnlyTheLatestState() {
+
+        RecordingUserInterface ui = new RecordingUserInterface();
+        UserInterfaceDispatcher dispatcher = new UserInterfaceDispatcher(ui, 2, 12, 0);
+
+        dispatcher.placeCard(5, 0);
+        dispatcher.removeCard(0);
+        dispatcher.placeCard(7, 0);
+        dispatcher.placeToken(1, 3);
+        dispatcher.placeToken(0, 4);
+        dispatcher.removeToken(0, 4);
+        for (long millis = 3000; millis >= 1000; millis -= 10)
+            dispatcher.setFreeze(1, millis);
+        dispatcher.setCountdown(60000, false);
+        dispatcher.setCountdown(59000, false);
+        dispatcher.applyFrame();
+
+        assertEquals(4, ui.calls.size());
+        assertEquals("placeCard 7 0", ui.calls.get(0));
+        assertEquals("placeToken 1 3", ui.calls.get(1));
+        assertEquals("setCountdown 59000 false", ui.calls.get(2));
+        assertEquals("setFreeze 1 1000", ui.calls.get(3));
+
+        ui.calls.clear();
+        dispatcher.applyFrame();
+        assertEquals(0, ui.calls.size());
+
+        dispatcher.removeTokens();
+        dispatcher.applyFrame();
+        assertEquals(1, ui.calls.size());
+        assertEquals("removeToken 1 3", ui.calls.get(0));
+    }
+}
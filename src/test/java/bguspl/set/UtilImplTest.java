@@ -0,0 +1,127 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UtilImplTest {
+
+    private static Config config(int featureSize, int featureCount) {
+        Properties properties = new Properties();
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        return new Config(Logger.getAnonymousLogger(), properties);
+    }
+
+    private static List<Integer> deck(Config config) {
+        return IntStream.range(0, config.deckSize).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the sets in the deck by testing every combination of 3 cards.
+     */
+    private static int countTriplesSlowly(Util util, List<Integer> deck) {
+        int sets = 0;
+        for (int i = 0; i < deck.size(); ++i)
+            for (int j = i + 1; j < deck.size(); ++j)
+                for (int k = j + 1; k < deck.size(); ++k)
+                    if (util.testSet(new int[]{deck.get(i), deck.get(j), deck.get(k)}))
+                        ++sets;
+        return sets;
+    }
+
+    @Test
+    void cardToFeatures_MatchesCardIdDigits() {
+
+        Util util = new UtilImpl(config(3, 4));
+        assertArrayEquals(new int[]{0, 0, 1, 2}, util.cardToFeatures(5));
+        assertArrayEquals(new int[]{2, 2, 2, 2}, util.cardToFeatures(80));
+        assertEquals(1, util.cardFeature(5, 2));
+    }
+
+    @Test
+    void testSet_LegalAndIllegalSets() {
+
+        Util util = new UtilImpl(config(3, 4));
+        assertTrue(util.testSet(new int[]{0, 1, 2}));      // only the last feature differs, in all three
+        assertTrue(util.testSet(new int[]{0, 40, 80}));    // all features differ
+        assertFalse(util.testSet(new int[]{0, 1, 5}));     // 0000, 0001, 0012: two cards share a value
+        assertFalse(util.testSet(new int[]{7}));
+    }
+
+    @Test
+    void testPackedSet_AgreesWithTestSet() {
+
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; b += 7)
+                for (int c = b + 1; c < config.deckSize; c += 5) {
+                    long pa = util.packedFeatures(a), pb = util.packedFeatures(b), pc = util.packedFeatures(c);
+                    assertEquals(util.testSet(new int[]{a, b, c}), util.testPackedSet(pa | pb | pc, pa & pb & pc));
+                }
+    }
+
+    @Test
+    void findSets_FullDeck() {
+
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        List<int[]> sets = util.findSets(deck(config), Integer.MAX_VALUE);
+
+        // every pair of the 81 cards is completed by exactly one card, so there are 81*80/6 sets
+        assertEquals(1080, sets.size());
+        for (int[] set : sets) {
+            assertTrue(util.testSet(set));
+            assertTrue(set[0] < set[1] && set[1] < set[2]);
+        }
+    }
+
+    @Test
+    void findSets_RespectsCount() {
+
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        assertEquals(1, util.findSets(deck(config), 1).size());
+        assertEquals(0, util.findSets(deck(config), 0).size());
+    }
+
+    @Test
+    void findSets_ShuffledSubsetMatchesExhaustiveSearch() {
+
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = new ArrayList<>(deck(config));
+        Collections.shuffle(deck, new Random(0));
+        List<Integer> cards = deck.subList(0, 20);
+
+        assertEquals(countTriplesSlowly(util, cards), util.findSets(cards, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void findSets_OtherFeatureSize() {
+
+        // with 4 values per feature a set has 4 cards; every triple with legal features has one completing card
+        Config config = config(4, 3);
+        Util util = new UtilImpl(config);
+        List<int[]> sets = util.findSets(deck(config), Integer.MAX_VALUE);
+
+        assertEquals(912, sets.size());
+        for (int[] set : sets) {
+            assertEquals(4, set.length);
+            assertTrue(util.testSet(set));
+        }
+    }
+}
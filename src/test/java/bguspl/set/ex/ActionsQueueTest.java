@@ -0,0 +1,100 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ActionsQueueTest {
+
+    @Test
+    void parse_ConfigNames() {
+
+        assertEquals(actionsQueue.Policy.BLOCK, actionsQueue.Policy.parse("block"));
+        assertEquals(actionsQueue.Policy.DROP_NEWEST, actionsQueue.Policy.parse("Drop-Newest"));
+        assertEquals(actionsQueue.Policy.DROP_OLDEST, actionsQueue.Policy.parse("drop-oldest"));
+        assertNull(actionsQueue.Policy.parse("fifo"));
+    }
+
+    @Test
+    void put_DropNewestWhenFull() {
+
+        actionsQueue queue = new actionsQueue(2, actionsQueue.Policy.DROP_NEWEST);
+        assertTrue(queue.put(1));
+        assertTrue(queue.put(2));
+        assertFalse(queue.put(3));
+        assertEquals(1, queue.take());
+        assertTrue(queue.put(4));
+        assertEquals(2, queue.take());
+        assertEquals(4, queue.take());
+    }
+
+    @Test
+    void put_DropOldestWhenFull() {
+
+        actionsQueue queue = new actionsQueue(2, actionsQueue.Policy.DROP_OLDEST);
+        queue.put(1);
+        queue.put(2);
+        assertTrue(queue.put(3));
+        assertEquals(2, queue.take());
+        assertEquals(3, queue.take());
+    }
+
+    @Test
+    void clearQueue_DiscardsWaitingActions() {
+
+        actionsQueue queue = new actionsQueue(3, actionsQueue.Policy.DROP_NEWEST);
+        queue.put(1);
+        queue.put(2);
+        queue.clearQueue();
+        queue.put(3);
+        assertEquals(3, queue.take());
+    }
+
+    @Test
+    void put_BlockWaitsForTheConsumer() throws InterruptedException {
+
+        actionsQueue queue = new actionsQueue(1, actionsQueue.Policy.BLOCK);
+        Thread producer = new Thread(() -> {
+            for (int slot = 0; slot < 1000; slot++)
+                queue.put(slot);
+        });
+        producer.start();
+        for (int slot = 0; slot < 1000; slot++)
+            assertEquals(slot, queue.take());
+        producer.join();
+    }
+
+    @Test
+    void take_ReturnsNoActionWhenInterrupted() throws InterruptedException {
+
+        actionsQueue queue = new actionsQueue(3, actionsQueue.Policy.BLOCK);
+        int[] taken = new int[1];
+        Thread consumer = new Thread(() -> taken[0] = queue.take());
+        consumer.start();
+        consumer.interrupt();
+        consumer.join();
+        assertEquals(actionsQueue.NO_ACTION, taken[0]);
+    }
+
+    @Test
+    void take_DropOldestUnderContentionKeepsOrder() throws InterruptedException {
+
+        actionsQueue queue = new actionsQueue(3, actionsQueue.Policy.DROP_OLDEST);
+        int last = 100000;
+        Thread producer = new Thread(() -> {
+            for (int slot = 0; slot <= last; slot++)
+                queue.put(slot);
+        });
+        producer.start();
+        int previous = -1;
+        while (previous != last) {
+            int slot = queue.take();
+            assertTrue(slot > previous);
+            previous = slot;
+        }
+        producer.join();
+    }
+}
@@ -0,0 +1,48 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimStatsTest {
+
+    @Test
+    void checked_RecordsEveryStagePerPlayerAndOverall() {
+
+        ClaimStats stats = new ClaimStats(2);
+        stats.submitted();
+        stats.checked(1, 1_000, 5_000, 6_000, 8_000);
+
+        assertEquals(1, stats.getClaimsSubmitted());
+        assertEquals(1, stats.getClaimsChecked());
+        assertEquals(4_000, stats.latency(ClaimStats.Stage.QUEUE).max());
+        assertEquals(1_000, stats.latency(ClaimStats.Stage.CHECK).max());
+        assertEquals(2_000, stats.latency(ClaimStats.Stage.NOTIFY).max());
+        assertEquals(7_000, stats.latency(1, ClaimStats.Stage.TOTAL).max());
+        assertEquals(0, stats.latency(0, ClaimStats.Stage.TOTAL).count());
+    }
+
+    @Test
+    void register_PublishesMBeanUntilUnregistered() throws Exception {
+
+        ClaimStats stats = new ClaimStats(1);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("bguspl.set:type=ClaimStats,*");
+        int before = server.queryNames(pattern, null).size();
+
+        stats.register(Logger.getAnonymousLogger());
+        stats.submitted();
+        assertEquals(before + 1, server.queryNames(pattern, null).size());
+        for (ObjectName name : server.queryNames(pattern, null))
+            assertTrue(server.getAttribute(name, "ClaimsSubmitted") instanceof Long);
+
+        stats.unregister(Logger.getAnonymousLogger());
+        assertEquals(before, server.queryNames(pattern, null).size());
+    }
+}
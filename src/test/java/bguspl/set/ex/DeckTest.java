@@ -0,0 +1,79 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    @Test
+    void draw_InOrderUntilEmpty() {
+
+        Deck deck = new Deck(3);
+        assertEquals(0, deck.draw());
+        assertEquals(1, deck.draw());
+        assertEquals(2, deck.draw());
+        assertTrue(deck.isEmpty());
+        assertThrows(NoSuchElementException.class, deck::draw);
+    }
+
+    @Test
+    void add_ReturnsCardsToTheBottomAcrossTheEnd() {
+
+        Deck deck = new Deck(4);
+        deck.draw();
+        deck.draw();
+        deck.draw();
+        deck.add(1);
+        deck.add(0);
+        assertArrayEquals(new int[]{3, 1, 0}, deck.toArray());
+        assertEquals(3, deck.draw());
+        assertEquals(1, deck.draw());
+
+        deck.add(2);
+        deck.add(3);
+        deck.add(1);
+        assertThrows(IllegalStateException.class, () -> deck.add(5));
+    }
+
+    @Test
+    void peek_CopiesTheTopCardsAcrossTheEnd() {
+
+        Deck deck = new Deck(4);
+        deck.draw();
+        deck.draw();
+        deck.add(0);
+        int[] buffer = new int[5];
+        assertEquals(2, deck.peek(buffer, 2));
+        assertArrayEquals(new int[]{2, 3, 0, 0, 0}, buffer);
+        assertEquals(3, deck.peek(buffer, 5));
+        assertArrayEquals(new int[]{2, 3, 0}, Arrays.copyOf(buffer, 3));
+        assertArrayEquals(new int[]{2, 3}, deck.peek(2));
+    }
+
+    @Test
+    void shuffle_KeepsTheSameCards() {
+
+        Deck deck = new Deck(81);
+        for (int i = 0; i < 30; i++)
+            deck.draw();
+        for (int card = 0; card < 10; card++)
+            deck.add(card);
+        deck.shuffle(new Random(0));
+
+        int[] cards = deck.toArray();
+        assertEquals(61, cards.length);
+        Arrays.sort(cards);
+        for (int i = 0; i < 10; i++)
+            assertEquals(i, cards[i]);
+        for (int i = 10; i < cards.length; i++)
+            assertEquals(i + 20, cards[i]);
+    }
+}
@@ -0,0 +1,115 @@
+package bguspl.set.ex;
+
+import bguspl.set.Clock;
+import bguspl.set.Config;
+import bguspl.set.Env;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FreezeTimerTest {
+
+    private static class FreezeRecorder extends TableTest.MockUserInterface {
+        final List<Long> freezes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void setFreeze(int player, long millies) {
+            freezes.add(millies);
+        }
+    }
+
+    /**
+     * A clock that only moves when told to.
+     */
+    private static class ManualClock implements Clock {
+        long now;
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        @Override
+        public long realNanos(long millis) {
+            return TimeUnit.MILLISECONDS.toNanos(millis);
+        }
+    }
+
+    /**
+     * A scheduler that keeps the scheduled task instead of running it, so the test runs it when it is due.
+     */
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+        Runnable task;
+        long delayNanos;
+
+        ManualScheduler() {
+            super(0);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            task = command;
+            delayNanos = unit.toNanos(delay);
+            return null;
+        }
+
+        // advances the clock to the scheduled time and runs the task
+        void runNext(ManualClock clock) {
+            Runnable next = task;
+            assertNotNull(next);
+            task = null;
+            clock.now += TimeUnit.NANOSECONDS.toMillis(delayNanos);
+            next.run();
+        }
+    }
+
+    private static Env env(FreezeRecorder ui) {
+        return env(ui, Clock.SYSTEM);
+    }
+
+    private static Env env(FreezeRecorder ui, Clock clock) {
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        return new Env(logger, new Config(logger, new Properties()), ui, new TableTest.MockUtil(), clock);
+    }
+
+    @Test
+    void start_UpdatesOncePerSecondAndEnds() throws InterruptedException {
+
+        FreezeRecorder ui = new FreezeRecorder();
+        ManualClock clock = new ManualClock();
+        ManualScheduler scheduler = new ManualScheduler();
+        FreezeTimer.Freeze freeze = FreezeTimer.start(env(ui, clock), 0, 1500, scheduler);
+        assertEquals(Collections.singletonList(2000L), ui.freezes);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), scheduler.delayNanos);
+
+        scheduler.runNext(clock);
+        assertEquals(Arrays.asList(2000L, 1000L), ui.freezes);
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1000), scheduler.delayNanos);
+
+        scheduler.runNext(clock);
+        assertEquals(Arrays.asList(2000L, 1000L, 0L), ui.freezes);
+        assertNull(scheduler.task);
+        assertEquals(1500, clock.now);
+        freeze.await(); // already ended
+        scheduler.shutdown();
+    }
+
+    @Test
+    void start_NoFreeze() throws InterruptedException {
+
+        FreezeRecorder ui = new FreezeRecorder();
+        FreezeTimer.start(env(ui), 1, 0).await();
+        assertEquals(Collections.singletonList(0L), ui.freezes);
+    }
+}
@@ -0,0 +1,60 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetsQueueTest {
+
+    private static Triple<Integer, int[], int[]> claim(int player, int number) {
+        return new Triple<>(player, new int[]{number}, new int[0]);
+    }
+
+    @Test
+    void drain_ReturnsClaimsInOrder() {
+
+        setsQueue queue = new setsQueue();
+        assertNull(queue.drain());
+
+        queue.put(claim(0, 1));
+        queue.put(claim(1, 2));
+        queue.put(claim(0, 3));
+        setsQueue.Node claim = queue.drain();
+        assertTrue(queue.isEmpty());
+        for (int number = 1; number <= 3; number++, claim = claim.next)
+            assertEquals(number, claim.set.getSecond()[0]);
+        assertNull(claim);
+    }
+
+    @Test
+    void drain_ConcurrentProducersLoseNothing() throws InterruptedException {
+
+        int producers = 4;
+        int claims = 20000;
+        setsQueue queue = new setsQueue();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int player = p;
+            threads[p] = new Thread(() -> {
+                for (int i = 0; i < claims; i++)
+                    queue.put(claim(player, i));
+            });
+            threads[p].start();
+        }
+
+        int[] next = new int[producers];
+        int received = 0;
+        while (received < producers * claims) {
+            for (setsQueue.Node claim = queue.drain(); claim != null; claim = claim.next) {
+                int player = claim.set.getFirst();
+                assertEquals(next[player]++, claim.set.getSecond()[0]); // each producer's claims stay in order
+                received++;
+            }
+        }
+        for (Thread thread : threads)
+            thread.join();
+        assertTrue(queue.isEmpty());
+    }
+}
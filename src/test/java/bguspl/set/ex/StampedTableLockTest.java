@@ -0,0 +1,46 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StampedTableLockTest {
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        while (thread.isAlive() && thread.getState() != Thread.State.WAITING)
+            Thread.sleep(1);
+    }
+
+    @Test
+    void dealerLock_NewReadersQueueBehindAWaitingDealer() throws InterruptedException {
+
+        StampedTableLock lock = new StampedTableLock();
+        List<String> order = new CopyOnWriteArrayList<>();
+        lock.playerLock();
+
+        Thread dealer = new Thread(() -> {
+            lock.dealerLock();
+            order.add("dealer");
+            lock.dealerUnlock();
+        });
+        dealer.start();
+        awaitBlocked(dealer);
+
+        Thread player = new Thread(() -> {
+            lock.playerLock();
+            order.add("player");
+            lock.playerUnlock();
+        });
+        player.start();
+        awaitBlocked(player);
+
+        lock.playerUnlock();
+        dealer.join();
+        player.join();
+        assertEquals(Arrays.asList("dealer", "player"), order);
+    }
+}
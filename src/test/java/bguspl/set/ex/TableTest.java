@@ -4,20 +4,26 @@ import bguspl.set.Config;
 import bguspl.set.Env;
 import bguspl.set.UserInterface;
 import bguspl.set.Util;
+import bguspl.set.UtilImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.Random;
 import java.util.logging.Logger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private int[] cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -32,8 +38,10 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        cardToSlot = new int[config.deckSize];
+        Arrays.fill(slotToCard, Table.EMPTY);
+        Arrays.fill(cardToSlot, Table.EMPTY);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
@@ -58,8 +66,8 @@ class TableTest {
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot[8]);
     }
 
     @Test
@@ -95,6 +103,125 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    private static Table tableWithRealUtil(int rows, int columns) {
+        return tableWithRealUtil(rows, columns, "Stamped");
+    }
+
+    private static Table tableWithRealUtil(int rows, int columns, String lock) {
+        Properties properties = new Properties();
+        properties.put("Rows", Integer.toString(rows));
+        properties.put("Columns", Integer.toString(columns));
+        properties.put("TableDelaySeconds", "0");
+        properties.put("TableLock", lock);
+        MockLogger logger = new MockLogger();
+        Config config = new Config(logger, properties);
+        return new Table(new Env(logger, config, new MockUserInterface(), new UtilImpl(config)));
+    }
+
+    @Test
+    void doSetExists_FollowsPlacedAndRemovedCards() {
+
+        Table table = tableWithRealUtil(2, 2);
+        table.placeCard(0, 0);
+        table.placeCard(1, 1);
+        table.placeCard(5, 3);
+        assertFalse(table.doSetExists());
+
+        table.placeCard(2, 2); // 0000, 0001, 0002
+        assertTrue(table.doSetExists());
+
+        table.removeCard(1);
+        assertFalse(table.doSetExists());
+    }
+
+    @Test
+    void doSetExists_AgreesWithFullSearchOnLargeGrid() {
+
+        Table table = tableWithRealUtil(6, 8);
+        Util util = new UtilImpl(new Config(new MockLogger(), new Properties()));
+        Random random = new Random(0);
+        for (int step = 0; step < 2000; ++step) {
+            int slot = random.nextInt(table.slotToCard.length);
+            if (random.nextInt(3) == 0) table.removeCard(slot);
+            else {
+                int card = random.nextInt(table.cardToSlot.length);
+                if (table.cardToSlot[card] == Table.EMPTY) {
+                    table.removeCard(slot);
+                    table.placeCard(card, slot);
+                }
+            }
+
+            List<Integer> cards = new ArrayList<>();
+            for (int card : table.slotToCard)
+                if (card != Table.EMPTY) cards.add(card);
+            assertEquals(!util.findSets(cards, 1).isEmpty(), table.doSetExists());
+        }
+    }
+
+    @Test
+    void removeCards_StripedLock() {
+
+        Table table = tableWithRealUtil(3, 4, "Striped");
+        for (int slot = 0; slot < 12; slot++)
+            table.placeCard(slot, slot);
+        assertTrue(table.doSetExists());
+
+        table.removeCards(new int[]{11, 0, 5});
+        assertEquals(9, table.countCards());
+        assertEquals(null, table.getCard(0));
+        assertEquals(Table.EMPTY, table.cardAt(0));
+        assertEquals(Table.EMPTY, table.slotOf(5));
+        assertEquals(4, (int) table.getCard(4));
+        assertEquals(4, table.slotOf(4));
+        assertTrue(table.ourPlaceToken(0, 4));
+        assertFalse(table.ourPlaceToken(0, 11));
+    }
+
+    @Test
+    void tokens_PlaceRemoveAndClearSlot() {
+
+        fillAllSlots();
+        assertTrue(table.ourPlaceToken(0, 1));
+        assertTrue(table.ourPlaceToken(0, 3));
+        assertTrue(table.ourPlaceToken(1, 3));
+        assertEquals(2, table.countTokens(0));
+        assertEquals(1, table.countTokens(1));
+
+        table.removeTokens(3);
+        assertFalse(table.getToken(0, 3));
+        assertFalse(table.getToken(1, 3));
+        assertTrue(table.getToken(0, 1));
+        assertEquals(1, table.countTokens(0));
+        assertEquals(0, table.countTokens(1));
+
+        assertTrue(table.removeToken(0, 1));
+        assertFalse(table.removeToken(0, 1));
+        assertEquals(0, table.countTokens(0));
+    }
+
+    @Test
+    void returnSet_TokensBeyondFirstWord() {
+
+        Table table = tableWithRealUtil(9, 10);
+        table.placeCard(2, 2);
+        table.placeCard(70, 70);
+        table.placeCard(80, 89);
+        table.ourPlaceToken(1, 2);
+        table.ourPlaceToken(1, 70);
+        table.ourPlaceToken(1, 89);
+
+        int[][] set = table.returnSet(1);
+        assertEquals(3, table.countTokens(1));
+        assertEquals(2, set[1][0]);
+        assertEquals(70, set[1][1]);
+        assertEquals(89, set[1][2]);
+        assertEquals(80, set[0][2]);
+
+        table.removeCard(70);
+        assertEquals(2, table.countTokens(1));
+        assertFalse(table.getToken(1, 70));
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -133,16 +260,41 @@ class TableTest {
             return new int[0][];
         }
 
+        @Override
+        public int cardFeature(int card, int feature) {
+            return 0;
+        }
+
+        @Override
+        public long packedFeatures(int card) {
+            return 0;
+        }
+
+        @Override
+        public boolean testPackedSet(long or, long and) {
+            return false;
+        }
+
         @Override
         public boolean testSet(int[] cards) {
             return false;
         }
 
+        @Override
+        public int completeSet(int[] cards) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public List<int[]> findSets(int[] cards, int count) {
+            return null;
+        }
+
         @Override
         public void spin() {}
     }
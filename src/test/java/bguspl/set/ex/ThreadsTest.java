@@ -0,0 +1,73 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ThreadsTest {
+
+    private static Env env(String mode) {
+        Properties properties = new Properties();
+        properties.put("ExecutionMode", mode);
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        return new Env(logger, new Config(logger, properties), new TableTest.MockUserInterface(), new TableTest.MockUtil());
+    }
+
+    private static void assertRuns(Env env) throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        Thread thread = Threads.newThread(env, () -> ran.set(true), "player-7");
+        assertEquals("player-7", thread.getName());
+        thread.start();
+        thread.join();
+        assertTrue(ran.get());
+    }
+
+    @Test
+    void newThread_Platform() throws InterruptedException {
+
+        assertRuns(env("platform"));
+    }
+
+    @Test
+    void newThread_VirtualOrFallback() throws InterruptedException {
+
+        // on JVMs without virtual threads this falls back to a platform thread
+        assertRuns(env("virtual"));
+        assertRuns(env("no-such-mode"));
+    }
+
+    // the feature version of the running JVM (e.g. 8, 17, 21)
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+
+    @Test
+    void newThread_VirtualOnJava21() throws ReflectiveOperationException, InterruptedException {
+
+        assumeTrue(javaVersion() >= 21, "virtual threads need Java 21");
+        assertTrue(Threads.virtualSupported());
+        Env env = env("virtual");
+        Thread thread = Threads.newThread(env, () -> {}, "player-7");
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        assertRuns(env);
+    }
+
+    @Test
+    void newThread_PlatformBeforeJava21() {
+
+        assumeFalse(javaVersion() >= 21, "virtual threads are available");
+        assertFalse(Threads.virtualSupported());
+        // a platform thread, not one of the JDK's virtual thread classes
+        assertEquals(Thread.class, Threads.newThread(env("virtual"), () -> {}, "player-7").getClass());
+    }
+}